@@ -0,0 +1,68 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.incubator.base.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Entry point of the benchmarks jar. It accepts the usual JMH options and
+ * always adds the gc profiler, so that the allocation rate (gc.alloc.rate.norm
+ * = bytes by operation) is reported alongside the throughput.
+ *
+ * Examples:
+ * <pre>
+ * java -jar target/benchmarks.jar                      (all the suites)
+ * java -jar target/benchmarks.jar StlBenchmark -p frequency=MONTHLY
+ * java -jar target/benchmarks.jar X11Benchmark -rf json -rff x11.json
+ * </pre>
+ *
+ * @author Jean Palate
+ */
+public final class Main {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        if (cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers()
+                || cmd.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cmd);
+        if (!hasGcProfiler(cmd)) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        new Runner(builder.build()).run();
+    }
+
+    private static boolean hasGcProfiler(CommandLineOptions cmd) {
+        for (ProfilerConfig profiler : cmd.getProfilers()) {
+            String name = profiler.getKlass();
+            if (name.equals("gc") || name.equals(GCProfiler.class.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Main() {
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.incubator.base.benchmarks;
+
+import java.util.Random;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+
+/**
+ * Synthetic series used in the benchmarks: linear trend, seasonal cycles
+ * (sinusoids with harmonics) and gaussian noise. The series are strictly
+ * positive, so that they can be used in multiplicative decompositions, and
+ * they are fully determined by their frequency, their length and the seed.
+ *
+ * @author Jean Palate
+ */
+public final class SyntheticSeries {
+
+    public static enum Frequency {
+        QUARTERLY(4, 4, 4),
+        MONTHLY(12, 12, 12),
+        WEEKLY(52, 365.25 / 7, 52),
+        DAILY(365, 7, 7, 365);
+
+        private final int observationsByYear;
+        private final double period;
+        private final int[] periods;
+
+        private Frequency(int observationsByYear, double period, int... periods) {
+            this.observationsByYear = observationsByYear;
+            this.period = period;
+            this.periods = periods;
+        }
+
+        /**
+         * @return The number of observations in one year
+         */
+        public int getObservationsByYear() {
+            return observationsByYear;
+        }
+
+        /**
+         * @return The main periodicity (possibly non integer)
+         */
+        public double getPeriod() {
+            return period;
+        }
+
+        /**
+         * @return The main periodicity, rounded
+         */
+        public int getIntegerPeriod() {
+            return periods[0];
+        }
+
+        /**
+         * @return The integer periodicities of the seasonal cycles (the main
+         * one first)
+         */
+        public int[] getPeriods() {
+            return periods.clone();
+        }
+    }
+
+    /**
+     * Generates a synthetic series
+     *
+     * @param freq The frequency of the series
+     * @param years The number of years
+     * @param seed The seed of the random generator
+     * @return
+     */
+    public static DoubleSeq generate(Frequency freq, int years, long seed) {
+        int n = freq.getObservationsByYear() * years;
+        double[] y = new double[n];
+        Random rnd = new Random(seed);
+        double[] periods = freq == Frequency.DAILY ? new double[]{7, 365.25} : new double[]{freq.getPeriod()};
+        for (int i = 0; i < n; ++i) {
+            double s = 0;
+            for (int j = 0; j < periods.length; ++j) {
+                double w = 2 * Math.PI * i / periods[j];
+                s += 8 * Math.sin(w) + 3 * Math.cos(2 * w);
+            }
+            y[i] = 100 + 0.6 * i / freq.getObservationsByYear() + s + 2 * rnd.nextGaussian();
+        }
+        return DoubleSeq.of(y);
+    }
+
+    private SyntheticSeries() {
+    }
+}
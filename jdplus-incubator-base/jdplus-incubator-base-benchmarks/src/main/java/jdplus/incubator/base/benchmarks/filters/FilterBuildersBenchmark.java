@@ -0,0 +1,94 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.incubator.base.benchmarks.filters;
+
+import java.util.concurrent.TimeUnit;
+import jdplus.filters.base.api.FSTFilterSpec;
+import jdplus.filters.base.api.SpectralDensity;
+import jdplus.filters.base.core.DFAFilter;
+import jdplus.filters.base.core.FSTFilterFactory;
+import jdplus.toolkit.base.core.math.linearfilters.FiniteFilter;
+import jdplus.toolkit.base.core.math.linearfilters.HendersonFilters;
+import jdplus.toolkit.base.core.math.linearfilters.IFiltering;
+import jdplus.toolkit.base.core.math.linearfilters.SymmetricFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction of the asymmetric filters. DFAFilterFactory keeps the filters
+ * in a dictionary, so that the DFA filters are computed as in the factory
+ * (one optimization for each number of leads). The FST filters are not
+ * cached.
+ *
+ * The horizons correspond to the usual Henderson filters of quarterly (5
+ * terms), monthly (13 terms) and weekly/daily (25 terms) series.
+ *
+ * @author Jean Palate
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterBuildersBenchmark {
+
+    @Param({"2", "6", "12"})
+    public int horizon;
+
+    private DFAFilter.Builder dfa;
+    private FSTFilterSpec fst;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SymmetricFilter target = HendersonFilters.ofLength(2 * horizon + 1);
+        dfa = DFAFilter.builder()
+                .polynomialPreservation(0)
+                .nlags(horizon)
+                .timelinessLimits(0, Math.PI / 8)
+                .density(SpectralDensity.RandomWalk.asFunction())
+                .symetricFilter(target);
+        fst = FSTFilterSpec.builder()
+                .lags(horizon)
+                .leads(horizon)
+                .build();
+    }
+
+    @Benchmark
+    public FiniteFilter[] dfa() {
+        FiniteFilter[] filters = new FiniteFilter[horizon];
+        for (int i = 0, j = horizon - 1; i < horizon; ++i, --j) {
+            filters[i] = dfa.nleads(j).build().make(1.0 / 3, 1.0 / 3, 1.0 / 3).getFilter();
+        }
+        return filters;
+    }
+
+    @Benchmark
+    public IFiltering fst() {
+        return FSTFilterFactory.of(fst);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.incubator.base.benchmarks.filters;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import jdplus.filters.base.api.DFAFilterSpec;
+import jdplus.filters.base.api.FSTFilterSpec;
+import jdplus.filters.base.core.DFAFilterFactory;
+import jdplus.filters.base.core.FSTFilterFactory;
+import jdplus.incubator.base.benchmarks.SyntheticSeries;
+import jdplus.incubator.base.benchmarks.SyntheticSeries.Frequency;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.toolkit.base.core.math.linearfilters.HendersonFilters;
+import jdplus.toolkit.base.core.math.linearfilters.IFiltering;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Application of DFA and FST filters (13 terms, built once) to the synthetic
+ * series.
+ *
+ * @author Jean Palate
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FilteringBenchmark {
+
+    private static final int HORIZON = 6;
+
+    @Param({"QUARTERLY", "MONTHLY", "WEEKLY", "DAILY"})
+    public Frequency frequency;
+
+    @Param({"5", "10", "20"})
+    public int years;
+
+    private DoubleSeq data;
+    private IFiltering dfa, fst;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        data = SyntheticSeries.generate(frequency, years, 0);
+        // weights of the Henderson filter for the lags 0, ..., HORIZON
+        double[] w = HendersonFilters.ofLength(2 * HORIZON + 1).weightsToArray();
+        dfa = DFAFilterFactory.of(DFAFilterSpec.builder()
+                .lags(HORIZON)
+                .target(Arrays.copyOfRange(w, HORIZON, w.length))
+                .build());
+        fst = FSTFilterFactory.of(FSTFilterSpec.builder()
+                .lags(HORIZON)
+                .leads(HORIZON)
+                .build());
+    }
+
+    @Benchmark
+    public DoubleSeq dfa() {
+        return dfa.process(data);
+    }
+
+    @Benchmark
+    public DoubleSeq fst() {
+        return fst.process(data);
+    }
+}
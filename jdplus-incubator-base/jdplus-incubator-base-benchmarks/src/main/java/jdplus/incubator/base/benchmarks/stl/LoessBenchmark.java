@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.incubator.base.benchmarks.stl;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jdplus.stl.base.api.LoessSpec;
+import jdplus.stl.base.core.IDataGetter;
+import jdplus.stl.base.core.IDataSelector;
+import jdplus.stl.base.core.LoessFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loess filter (degree 1, without jumps) with robust weights, so that the
+ * weights of the estimator are computed for each point.
+ *
+ * The filter is measured with the plain loops (loess) and with the loops
+ * based on the Vector API (loessVector, forked with the incubator module; see
+ * LoessKernels in jdplus-stl-base-core).
+ *
+ * @author Jean Palate
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoessBenchmark {
+
+    @Param({"7", "13", "31", "365", "731"})
+    public int window;
+
+    @Param({"5000"})
+    public int length;
+
+    private double[] y, w, ys;
+    private LoessFilter filter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rnd = new Random(0);
+        y = new double[length];
+        w = new double[length];
+        ys = new double[length];
+        for (int i = 0; i < length; ++i) {
+            y[i] = Math.sin(i / 50.0) + rnd.nextGaussian();
+            w[i] = rnd.nextDouble();
+        }
+        filter = new LoessFilter(LoessSpec.of(window, 1, 0, null));
+    }
+
+    @Benchmark
+    public double[] loess() {
+        filter.filter(IDataGetter.of(y), k -> w[k], IDataSelector.of(ys));
+        return ys;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public double[] loessVector() {
+        filter.filter(IDataGetter.of(y), k -> w[k], IDataSelector.of(ys));
+        return ys;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.incubator.base.benchmarks.stl;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import jdplus.stl.base.core.PartialSort;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Median of the absolute residuals, as computed in the robustness step of the
+ * STL kernels: full sort (previous implementation) against partial sort.
+ *
+ * @author Jean Palate
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MedianBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int n;
+
+    private double[] residuals, buffer;
+    private final PartialSort psort = new PartialSort();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rnd = new Random(0);
+        residuals = new double[n];
+        for (int i = 0; i < n; ++i) {
+            residuals[i] = Math.abs(rnd.nextGaussian());
+        }
+        buffer = new double[n];
+    }
+
+    @Benchmark
+    public double fullSort() {
+        System.arraycopy(residuals, 0, buffer, 0, n);
+        Arrays.sort(buffer);
+        return median();
+    }
+
+    @Benchmark
+    public double partialSort() {
+        System.arraycopy(residuals, 0, buffer, 0, n);
+        psort.median(buffer, n);
+        return median();
+    }
+
+    private double median() {
+        int n2 = n >> 1;
+        return n % 2 != 0 ? buffer[n2] : .5 * (buffer[n2 - 1] + buffer[n2]);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.incubator.base.benchmarks.stl;
+
+import java.util.concurrent.TimeUnit;
+import jdplus.incubator.base.benchmarks.SyntheticSeries;
+import jdplus.incubator.base.benchmarks.SyntheticSeries.Frequency;
+import jdplus.stl.base.api.MStlSpec;
+import jdplus.stl.base.api.StlSpec;
+import jdplus.stl.base.core.MStlKernel;
+import jdplus.stl.base.core.MStlResults;
+import jdplus.stl.base.core.RawStlKernel;
+import jdplus.stl.base.core.RawStlResults;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * STL (main period) and MSTL (all the periods, i.e. 7 and 365 for daily
+ * series) decompositions. The kernels are created once, as in batch
+ * processing.
+ *
+ * @author Jean Palate
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StlBenchmark {
+
+    @Param({"QUARTERLY", "MONTHLY", "WEEKLY", "DAILY"})
+    public Frequency frequency;
+
+    @Param({"5", "10", "20"})
+    public int years;
+
+    @Param({"false", "true"})
+    public boolean robust;
+
+    private DoubleSeq data;
+    private RawStlKernel stl;
+    private MStlKernel mstl;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        data = SyntheticSeries.generate(frequency, years, 0);
+        stl = new RawStlKernel(StlSpec.createDefault(frequency.getIntegerPeriod(), false, robust));
+        mstl = MStlKernel.of(MStlSpec.createDefault(frequency.getPeriods(), robust));
+    }
+
+    @Benchmark
+    public RawStlResults stl() {
+        return stl.process(data);
+    }
+
+    @Benchmark
+    public MStlResults mstl() {
+        return mstl.process(data);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.incubator.base.benchmarks.sts;
+
+import java.util.concurrent.TimeUnit;
+import jdplus.incubator.base.benchmarks.SyntheticSeries;
+import jdplus.incubator.base.benchmarks.SyntheticSeries.Frequency;
+import jdplus.sts.base.api.BsmEstimationSpec;
+import jdplus.sts.base.api.BsmSpec;
+import jdplus.sts.base.api.RawBsmDecomposition;
+import jdplus.sts.base.core.BsmKernel;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Estimation of a basic structural model (default specification) followed by
+ * its decomposition. The estimation is much more expensive than the other
+ * kernels, hence the shorter series and the time unit.
+ *
+ * @author Jean Palate
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class BsmBenchmark {
+
+    @Param({"QUARTERLY", "MONTHLY", "WEEKLY", "DAILY"})
+    public Frequency frequency;
+
+    @Param({"5", "10"})
+    public int years;
+
+    private DoubleSeq data;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        data = SyntheticSeries.generate(frequency, years, 0);
+    }
+
+    @Benchmark
+    public RawBsmDecomposition bsm() {
+        // a kernel contains the state of one estimation
+        BsmKernel kernel = new BsmKernel(BsmEstimationSpec.DEFAULT);
+        if (!kernel.process(data, frequency.getIntegerPeriod(), BsmSpec.DEFAULT)) {
+            return null;
+        }
+        return kernel.decompose();
+    }
+}
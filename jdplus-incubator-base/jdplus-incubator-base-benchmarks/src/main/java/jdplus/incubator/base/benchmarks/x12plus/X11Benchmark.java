@@ -0,0 +1,76 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.incubator.base.benchmarks.x12plus;
+
+import java.util.concurrent.TimeUnit;
+import jdplus.incubator.base.benchmarks.SyntheticSeries;
+import jdplus.incubator.base.benchmarks.SyntheticSeries.Frequency;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.x12plus.base.api.SeasonalFilterOption;
+import jdplus.x12plus.base.api.X11plusSpec;
+import jdplus.x12plus.base.core.RawX11Kernel;
+import jdplus.x12plus.base.core.RawX11Results;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * X11 decomposition (default specification, S3X5 seasonal filters). Weekly
+ * series use the fractional period 365.25/7.
+ *
+ * @author Jean Palate
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class X11Benchmark {
+
+    @Param({"QUARTERLY", "MONTHLY", "WEEKLY", "DAILY"})
+    public Frequency frequency;
+
+    @Param({"5", "10", "20"})
+    public int years;
+
+    @Param({"false", "true"})
+    public boolean multiplicative;
+
+    private DoubleSeq data;
+    private RawX11Kernel kernel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        data = SyntheticSeries.generate(frequency, years, 0);
+        kernel = new RawX11Kernel(X11plusSpec.createDefault(multiplicative, frequency.getPeriod(), SeasonalFilterOption.S3X5));
+    }
+
+    @Benchmark
+    public RawX11Results x11() {
+        return kernel.process(data);
+    }
+}
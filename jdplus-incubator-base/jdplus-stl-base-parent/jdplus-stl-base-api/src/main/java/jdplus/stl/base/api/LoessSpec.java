@@ -24,6 +24,7 @@ import java.util.function.DoubleUnaryOperator;
  * the estimation window (should be odd) - degree: the degree of the
  * interpolating polynomial (0 for constant, 1 for linear trend) - jump
  * (optimization option): the number of jumps between two successive estimations
+ * - interpolation: the interpolation used between two successive estimations
  *
  * @author Jean Palate <jean.palate@nbb.be>
  */
@@ -46,12 +47,36 @@ public class LoessSpec {
      */
     private int jump;
 
+    /**
+     * Interpolation between two successive estimations (only used when jump
+     * is positive)
+     */
+    public static enum Interpolation {
+        /**
+         * Linear interpolation
+         */
+        LINEAR,
+        /**
+         * Cubic Hermite interpolation. The slopes at the estimation points
+         * are derived from the neighbouring estimates. Much more accurate than
+         * the linear interpolation for long windows, so that larger jumps can
+         * be used
+         */
+        HERMITE
+    }
+
     /**
      * WeightFunction
      */
     @lombok.NonNull
     private WeightFunction loessFunction;
 
+    /**
+     * Interpolation between two successive estimations
+     */
+    @lombok.NonNull
+    private Interpolation interpolation;
+
     public static final WeightFunction DEF_WEIGHTS = WeightFunction.TRICUBE;
 
     /**
@@ -132,7 +157,7 @@ public class LoessSpec {
         if (degree < 0 || degree > 1) {
             throw new IllegalArgumentException("STL");
         }
-        return new LoessSpec(window, degree, nojump ? 0 : 1, null);//(int) Math.ceil(0.1 * window), null);
+        return new LoessSpec(window, degree, nojump ? 0 : 1, null, Interpolation.LINEAR);//(int) Math.ceil(0.1 * window), null);
     }
 
     /**
@@ -145,6 +170,21 @@ public class LoessSpec {
      * @return
      */
     public static LoessSpec of(int window, int degree, int jump, WeightFunction fn) {
+        return of(window, degree, jump, fn, Interpolation.LINEAR);
+    }
+
+    /**
+     *
+     * @param window
+     * @param degree
+     * @param jump
+     * @param fn If null, the default weights are used (Tri-cubes). Use UNIFORM
+     * if you don't want weighting
+     * @param interpolation Interpolation between the estimations. If null,
+     * linear interpolation is used
+     * @return
+     */
+    public static LoessSpec of(int window, int degree, int jump, WeightFunction fn, Interpolation interpolation) {
         if (window < 2 || window % 2 != 1) {
             throw new IllegalArgumentException("STL");
         }
@@ -154,14 +194,15 @@ public class LoessSpec {
         if (jump < 0) {
             throw new IllegalArgumentException("STL");
         }
-        return new LoessSpec(window, degree, jump, fn);
+        return new LoessSpec(window, degree, jump, fn, interpolation);
     }
 
-    private LoessSpec(int window, int degree, int jump, WeightFunction fn) {
+    private LoessSpec(int window, int degree, int jump, WeightFunction fn, Interpolation interpolation) {
         this.window = window;
         this.degree = degree;
         this.jump = jump;
         this.loessFunction = fn == null ? DEF_WEIGHTS : fn;
+        this.interpolation = interpolation == null ? Interpolation.LINEAR : interpolation;
     }
 
     /**
@@ -36,6 +36,23 @@ public class MStlSpec implements ProcSpecification {
     @lombok.Singular
     private List<SeasonalSpec> seasonalSpecs;
     private int innerLoopsCount, outerLoopsCount;
+    /**
+     * Tolerance on the relative changes of the components (inner loops) and
+     * of the robust weights (outer loops). When it is positive, the loops
+     * stop as soon as the changes are below the tolerance and the loops
+     * counts are the maximum numbers of iterations. 0 (default) for a fixed
+     * number of iterations
+     */
+    private double convergenceTolerance;
+    /**
+     * Reuse of the seasonal smoothing in the robust iterations. When it is
+     * positive, a cycle-subseries is refiltered only if its robust weights
+     * changed by more than this tolerance or if its input changed by more
+     * than this tolerance (relative to the range of the input) since its last
+     * filtering. Otherwise, its previous smoothing is reused. 0 (default) to
+     * refilter all the cycle-subseries
+     */
+    private double seasonalReuseTolerance;
     private double robustWeightThreshold;
 
     private WeightFunction robustWeightFunction;
@@ -16,10 +16,9 @@
  */
 package jdplus.stl.base.core;
 
+import java.util.List;
 import jdplus.toolkit.base.api.data.DoubleSeq;
-import jdplus.toolkit.base.api.data.DoublesMath;
 import jdplus.stl.base.api.IStlSpec;
-import jdplus.stl.base.api.StlSpec;
 
 /**
  * Iterative version of STL for multiple frequencies
@@ -29,44 +28,29 @@ import jdplus.stl.base.api.StlSpec;
 @lombok.experimental.UtilityClass
 public class IStlKernel {
 
+    /**
+     * Iterative STL decomposition of a series. See IStlPipeline for the
+     * repeated processing of many series
+     *
+     * @param data The series
+     * @param spec The specification
+     * @return
+     */
     public MStlResults process(DoubleSeq data, IStlSpec spec) {
-        MStlResults.Builder builder = MStlResults.builder().series(data);
-        RawStlResults curRslt = null;
-        DoubleSeq seasonal = null;
-        boolean mul = spec.isMultiplicative();
-        for (IStlSpec.PeriodSpec pspec : spec.getPeriodSpecs()) {
-            StlSpec curSpec = StlSpec.builder()
-                    .multiplicative(mul)
-                    .seasonalSpec(pspec.getSeasonalSpec())
-                    .trendSpec(pspec.getTrendSpec())
-                    .innerLoopsCount(spec.getInnerLoopsCount())
-                    .outerLoopsCount(spec.getOuterLoopsCount())
-                    .robustWeightFunction(spec.getRobustWeightFunction())
-                    .robustWeightThreshold(spec.getRobustWeightThreshold())
-                    .build();
-            RawStlKernel kernel = new RawStlKernel(curSpec);
-            curRslt = kernel.process(data);
-            DoubleSeq seas = curRslt.getSeasonal();
-            builder.season(pspec.getSeasonalSpec().getPeriod(), seas);
-            if (mul) {
-                seasonal = DoublesMath.multiply(seasonal, seas);
-            } else {
-                seasonal = DoublesMath.add(seasonal, seas);
-            }
-            data = curRslt.getSa();
-        }
-        if (curRslt == null) {
-            return null;
-        }
-        DoubleSeq fit = mul ? DoublesMath.multiply(curRslt.getTrend(), seasonal) 
-                : DoublesMath.add(curRslt.getTrend(), seasonal);
-        return builder
-                .trend(curRslt.getTrend())
-                .sa(data)
-                .fit(fit)
-                .irregular(curRslt.getIrregular())
-                .weights(curRslt.getWeights())
-                .build();
+        return IStlPipeline.of(spec).process(data);
+    }
+
+    /**
+     * Iterative STL decomposition of a set of series, using at most nthreads
+     * concurrent threads
+     *
+     * @param data The series
+     * @param spec The specification used for all the series
+     * @param nthreads The maximum number of threads
+     * @return The decompositions, in the order of the series
+     */
+    public List<MStlResults> process(List<? extends DoubleSeq> data, IStlSpec spec, int nthreads) {
+        return IStlPipeline.process(data, spec, nthreads);
     }
 
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import jdplus.stl.base.api.IStlSpec;
+import jdplus.stl.base.api.StlSpec;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.toolkit.base.core.data.DataBlock;
+
+/**
+ * Iterative STL for multiple frequencies (see IStlKernel), organized as a
+ * pipeline of STL kernels (one for each period). The kernels are kept alive
+ * between the series, so that their workspaces are reused as long as the
+ * length of the series doesn't change. The seasonally adjusted series of a
+ * step is passed to the next step without any copy.
+ *
+ * The processing time of each period is provided in the results.
+ *
+ * A pipeline is not thread-safe. Many series can be processed concurrently by
+ * means of {@link #process(List, IStlSpec, ExecutorService, int)}, which uses
+ * one pipeline by worker.
+ *
+ * @author Jean Palate
+ */
+public final class IStlPipeline {
+
+    private final IStlSpec spec;
+    private final int[] periods;
+    private final RawStlKernel[] kernels;
+    // sum (product) of the seasonal components
+    private double[] seasonal;
+
+    public static IStlPipeline of(IStlSpec spec) {
+        return new IStlPipeline(spec);
+    }
+
+    private IStlPipeline(IStlSpec spec) {
+        this.spec = spec;
+        List<IStlSpec.PeriodSpec> pspecs = spec.getPeriodSpecs();
+        int np = pspecs.size();
+        periods = new int[np];
+        kernels = new RawStlKernel[np];
+        for (int i = 0; i < np; ++i) {
+            IStlSpec.PeriodSpec pspec = pspecs.get(i);
+            StlSpec curSpec = StlSpec.builder()
+                    .multiplicative(spec.isMultiplicative())
+                    .seasonalSpec(pspec.getSeasonalSpec())
+                    .trendSpec(pspec.getTrendSpec())
+                    .innerLoopsCount(spec.getInnerLoopsCount())
+                    .outerLoopsCount(spec.getOuterLoopsCount())
+                    .robustWeightFunction(spec.getRobustWeightFunction())
+                    .robustWeightThreshold(spec.getRobustWeightThreshold())
+                    .build();
+            periods[i] = pspec.getSeasonalSpec().getPeriod();
+            kernels[i] = new RawStlKernel(curSpec);
+        }
+    }
+
+    public IStlSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Decomposes a series
+     *
+     * @param data The series
+     * @return The decomposition or null if the specification doesn't contain
+     * any period or if the processing failed
+     */
+    public MStlResults process(DoubleSeq data) {
+        if (kernels.length == 0) {
+            return null;
+        }
+        int n = data.length();
+        boolean mul = spec.isMultiplicative();
+        if (seasonal == null || seasonal.length != n) {
+            seasonal = new double[n];
+        }
+        Arrays.fill(seasonal, mul ? 1 : 0);
+        MStlResults.Builder builder = MStlResults.builder()
+                .multiplicative(mul)
+                .series(data);
+        DoubleSeq cur = data;
+        StlWorkspace ws = null;
+        for (int i = 0; i < kernels.length; ++i) {
+            long t0 = System.nanoTime();
+            if (!kernels[i].decompose(cur)) {
+                return null;
+            }
+            ws = kernels[i].getWorkspace();
+            double[] s = ws.season;
+            if (mul) {
+                for (int j = 0; j < n; ++j) {
+                    seasonal[j] *= s[j];
+                }
+            } else {
+                for (int j = 0; j < n; ++j) {
+                    seasonal[j] += s[j];
+                }
+            }
+            builder.season(periods[i], DoubleSeq.of(s))
+                    .processingTime(periods[i], System.nanoTime() - t0);
+            // the next kernel copies the data in its own workspace
+            cur = DataBlock.of(ws.sa);
+        }
+        double[] trend = ws.trend, fit = new double[n];
+        if (mul) {
+            for (int j = 0; j < n; ++j) {
+                fit[j] = trend[j] * seasonal[j];
+            }
+        } else {
+            for (int j = 0; j < n; ++j) {
+                fit[j] = trend[j] + seasonal[j];
+            }
+        }
+        RawStlKernel last = kernels[kernels.length - 1];
+        return builder
+                .trend(DoubleSeq.of(trend))
+                .sa(DoubleSeq.of(ws.sa))
+                .fit(DoubleSeq.of(fit))
+                .irregular(DoubleSeq.of(ws.irr))
+                .weights(last.hasRobustWeights() ? DoubleSeq.of(ws.weights) : DoubleSeq.onMapping(n, x -> 1.0))
+                .build();
+    }
+
+    /**
+     * Decomposes a set of series concurrently, using a fixed pool of threads.
+     * The pool is shut down at the end of the processing.
+     *
+     * @param data The series
+     * @param spec The specification used for all the series
+     * @param nthreads The maximum number of threads
+     * @return The decompositions, in the order of the series. Failed
+     * decompositions are null
+     */
+    public static List<MStlResults> process(List<? extends DoubleSeq> data, IStlSpec spec, int nthreads) {
+        if (nthreads <= 0) {
+            throw new IllegalArgumentException("STL");
+        }
+        int nworkers = Math.min(nthreads, data.size());
+        if (nworkers <= 1) {
+            return process(data, spec, null, 1);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(nworkers);
+        try {
+            return process(data, spec, executor, nworkers);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Decomposes a set of series concurrently. At most nworkers tasks are
+     * submitted to the executor; each of them uses its own pipeline and takes
+     * the next unprocessed series until all of them have been handled.
+     *
+     * @param data The series
+     * @param spec The specification used for all the series
+     * @param executor The executor. If null, the series are processed
+     * sequentially in the calling thread
+     * @param nworkers The maximum number of concurrent tasks
+     * @return The decompositions, in the order of the series. Failed
+     * decompositions are null
+     */
+    public static List<MStlResults> process(List<? extends DoubleSeq> data, IStlSpec spec, ExecutorService executor, int nworkers) {
+        int n = data.size();
+        MStlResults[] rslts = new MStlResults[n];
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            IStlPipeline pipeline = IStlPipeline.of(spec);
+            for (int i = next.getAndIncrement(); i < n; i = next.getAndIncrement()) {
+                rslts[i] = pipeline.process(data.get(i));
+            }
+        };
+        if (executor == null || nworkers <= 1 || n <= 1) {
+            worker.run();
+        } else {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < Math.min(nworkers, n); ++i) {
+                tasks.add(executor.submit(worker));
+            }
+            try {
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException rex) {
+                    throw rex;
+                }
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+        return Arrays.asList(rslts);
+    }
+}
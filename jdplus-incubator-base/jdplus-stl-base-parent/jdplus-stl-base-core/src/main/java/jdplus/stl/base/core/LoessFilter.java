@@ -26,12 +26,54 @@ import java.util.function.IntToDoubleFunction;
  */
 public class LoessFilter {
 
+    // loops on the weights (plain or vectorized, see LoessKernels)
+    private static final LoessKernel KERNEL = LoessKernels.DEFAULT;
+
     private final LoessSpec spec;
     private final double[] w;
+    // data of the current window (missing values replaced by 0)
+    private final double[] yw;
+    private final WeightsTable[] tables = new WeightsTable[2];
+    // slopes at the estimation points (hermite interpolation). Resized on demand
+    private double[] slopes;
+    // number of observations preceding the data in a longer series (see setRangeOffset)
+    private int rangeOffset;
 
     public LoessFilter(LoessSpec spec) {
         this.spec = spec;
         this.w = new double[spec.getWindow()];
+        this.yw = new double[spec.getWindow()];
+    }
+
+    /**
+     * Creates a loess filter that uses the weights buffer of a workspace
+     *
+     * @param spec The specification of the filter
+     * @param ws The workspace
+     */
+    public LoessFilter(LoessSpec spec, StlWorkspace ws) {
+        this.spec = spec;
+        this.w = ws.loessWeights(spec.getWindow());
+        this.yw = ws.loessData(spec.getWindow());
+    }
+
+    /**
+     * As in the original STL, the local linear fits are considered as
+     * degenerate when the spread of the weighted positions in the window is
+     * small in comparison with the length of the series. When the data are the
+     * end of a longer series, the length of the complete series should be
+     * used in that test to get the same estimates as on the complete series.
+     *
+     * @param offset The number of observations that precede the data in the
+     * complete series
+     */
+    void setRangeOffset(int offset) {
+        if (offset != rangeOffset) {
+            rangeOffset = offset;
+            // the tables depend on the range
+            tables[0] = null;
+            tables[1] = null;
+        }
     }
 
     public boolean filter(IDataGetter y, IntToDoubleFunction userWeights, IDataSelector ys) {
@@ -53,6 +95,8 @@ public class LoessFilter {
         final int step = Math.min(1 + spec.getJump(), n - 1);
         int nleft = 0, nright = 0;
         DoubleUnaryOperator kernel = spec.getLoessFunction().asFunction();
+        // pre-computed weights can be used when they only depend on the position in the window
+        WeightsTable table = userWeights == null && win < n && isComplete(y) ? table(n, kernel) : null;
         if (win >= n) {
             nleft = 0;
             nright = n - 1;
@@ -90,7 +134,7 @@ public class LoessFilter {
                     ++nleft;
                     ++nright;
                 }
-                double yscur = loess(y, i, nleft, nright, kernel, userWeights);
+                double yscur = estimate(y, i, nleft, nright, kernel, userWeights, table);
                 if (Double.isFinite(yscur)) {
                     ys.set(i, yscur);
                 } else {
@@ -111,7 +155,7 @@ public class LoessFilter {
                     nright = i + nsh;
                 }
 
-                double yscur = loess(y, i, nleft, nright, kernel, userWeights);
+                double yscur = estimate(y, i, nleft, nright, kernel, userWeights, table);
                 if (Double.isFinite(yscur)) {
                     ys.set(i, yscur);
                 } else {
@@ -120,26 +164,34 @@ public class LoessFilter {
             }
         }
         if (step != 1) {
+            boolean hermite = spec.getInterpolation() == LoessSpec.Interpolation.HERMITE;
             int i = i0;
             for (; i < i1 - step; i += step) {
-                double delta = (ys.get(i + step) - ys.get(i)) / step;
-                for (int j = i + 1; j < i + step; ++j) {
-                    ys.set(j, ys.get(i) + delta * (j - i));
+                if (!hermite) {
+                    double delta = (ys.get(i + step) - ys.get(i)) / step;
+                    for (int j = i + 1; j < i + step; ++j) {
+                        ys.set(j, ys.get(i) + delta * (j - i));
+                    }
                 }
             }
 
             if (i != i1 - 1) {
-                double yscur = loess(y, i1 - 1, nleft, nright, kernel, userWeights);
+                double yscur = estimate(y, i1 - 1, nleft, nright, kernel, userWeights, table);
                 if (Double.isFinite(yscur)) {
                     ys.set(i1 - 1, yscur);
                 } else {
                     ys.set(i1 - 1, y.get(i1 - 1));
                 }
-                double delta = (ys.get(i1 - 1) - ys.get(i)) / (i1 - i - 1);
-                for (int j = i + 1; j < i1 - 1; ++j) {
-                    ys.set(j, ys.get(i) + delta * (j - i));
+                if (!hermite) {
+                    double delta = (ys.get(i1 - 1) - ys.get(i)) / (i1 - i - 1);
+                    for (int j = i + 1; j < i1 - 1; ++j) {
+                        ys.set(j, ys.get(i) + delta * (j - i));
+                    }
                 }
             }
+            if (hermite) {
+                hermite(ys, i0, i1, step);
+            }
         }
         nleft = i0;
         nright = i0 + Math.min(win - 1, n - 1);
@@ -165,11 +217,81 @@ public class LoessFilter {
         return true;
     }
 
+    /**
+     * Cubic Hermite interpolation between the estimation points (i0, i0+step,
+     * ..., and i1-1). The slopes at the estimation points are derived from the
+     * neighbouring estimates (central differences, one-sided differences at
+     * the ends), so that they correspond to the slopes of the smoothed series.
+     * They are computed once, before the interpolation.
+     *
+     * @param ys The estimates
+     * @param i0 The first estimation point
+     * @param i1 The end of the estimates (excluded)
+     * @param step The distance between two estimation points
+     */
+    private void hermite(IDataSelector ys, int i0, int i1, int step) {
+        int nk = (i1 - 1 - i0 + step - 1) / step + 1;
+        if (slopes == null || slopes.length < nk) {
+            slopes = new double[nk];
+        }
+        double[] d = slopes;
+        for (int k = 0; k < nk; ++k) {
+            int k0 = Math.max(0, k - 1), k1 = Math.min(nk - 1, k + 1);
+            int x0 = Math.min(i0 + k0 * step, i1 - 1), x1 = Math.min(i0 + k1 * step, i1 - 1);
+            d[k] = (ys.get(x1) - ys.get(x0)) / (x1 - x0);
+        }
+        for (int k = 0; k < nk - 1; ++k) {
+            int x0 = i0 + k * step, x1 = Math.min(x0 + step, i1 - 1);
+            double y0 = ys.get(x0), y1 = ys.get(x1);
+            double h = x1 - x0, m0 = h * d[k], m1 = h * d[k + 1];
+            for (int j = x0 + 1; j < x1; ++j) {
+                double t = (j - x0) / h, t2 = t * t, t3 = t2 * t;
+                ys.set(j, (2 * t3 - 3 * t2 + 1) * y0 + (t3 - 2 * t2 + t) * m0 + (3 * t2 - 2 * t3) * y1 + (t3 - t2) * m1);
+            }
+        }
+    }
+
+    private double estimate(IDataGetter y, int ix, int nleft, int nright, DoubleUnaryOperator kernel, IntToDoubleFunction userWeights, WeightsTable table) {
+        if (table == null || ix < nleft || ix > nright) {
+            return loess(y, ix, nleft, nright, kernel, userWeights);
+        }
+        int pos = ix - nleft;
+        double[] tw = table.weights(pos);
+        double ys = 0;
+        for (int j = 0, k = nleft + table.start(pos); j < tw.length; ++j, ++k) {
+            ys += tw[j] * y.get(k);
+        }
+        return ys;
+    }
+
     private double loess(IDataGetter y, int ix, int nleft, int nright, DoubleUnaryOperator kernel, IntToDoubleFunction userWeights) {
-        int n = y.getLength();
+        if (!weights(y, y.getLength(), ix, nleft, nright, kernel, userWeights, w)) {
+            return Double.NaN;
+        }
+        // the weights of the missing values are 0 and their data are set to 0
+        return KERNEL.dot(w, yw, nright - nleft + 1);
+    }
+
+    /**
+     * Computes the weights of the loess estimator
+     *
+     * @param y The data. If null, all the data are considered as available
+     * @param n The length of the data
+     * @param ix The position of the estimate
+     * @param nleft The first position of the window (included)
+     * @param nright The last position of the window (included)
+     * @param kernel The kernel
+     * @param userWeights The user weights. May be null
+     * @param w The buffer that will contain the weights (from 0 to nright-nleft)
+     * @return False if the estimate can't be computed
+     * 
+     * The data of the window are copied in yw (0 for the missing values), so
+     * that the different sums can be computed without any test on the weights
+     */
+    private boolean weights(IDataGetter y, int n, int ix, int nleft, int nright, DoubleUnaryOperator kernel, IntToDoubleFunction userWeights, double[] w) {
         int nw = nright - nleft + 1;
         int len = spec.getWindow();
-        double range = n - 1;
+        double range = n - 1 + rangeOffset;
         double h = Math.max(ix - nleft, nright - ix);
         if (len > n) {  // the length of the filter is higher than the length of the data
             h += (len - n) / 2; // Just another convention
@@ -179,8 +301,9 @@ public class LoessFilter {
         double h1 = 0.001 * h;
         double a = 0;
         for (int j = nleft, jw = 0; j <= nright; ++j, ++jw) {
-            boolean available = Double.isFinite(y.get(j));
-            if (available) {
+            double yj = y == null ? 0 : y.get(j);
+            if (Double.isFinite(yj)) {
+                yw[jw] = yj;
                 double r = Math.abs(j - ix);
                 if (r <= h9) {
                     if (r <= h1) {
@@ -197,46 +320,106 @@ public class LoessFilter {
                 }
             } else {
                 w[jw] = 0;
+                yw[jw] = 0;
             }
         }
         if (a <= 0) {
-            return Double.NaN;
+            return false;
         } else {
             double cbound = .000001 * range * range;
-            for (int j = 0; j < nw; ++j) {
-                w[j] /= a;
-            }
             if (h > 0 && spec.getDegree() > 0) {
-                a = 0;
-                for (int j = 0; j < nw; ++j) {
-                    if (w[j] != 0) {
-                        a += w[j] * j;
-                    }
-                }
+                // normalization and mean position in the same pass
+                a = KERNEL.normalize(w, nw, a);
                 double b = ix - nleft - a;
-                double c = 0;
-                for (int j = 0; j < nw; ++j) {
-                    if (w[j] != 0) {
-                        double ja = j - a;
-                        c += w[j] * ja * ja;
-                    }
-                }
+                double c = KERNEL.spread(w, nw, a);
                 if (c > cbound) {
-                    b /= c;
-                    for (int j = 0; j < nw; ++j) {
-                        if (w[j] != 0) {
-                            w[j] *= b * (j - a) + 1;
-                        }
-                    }
+                    KERNEL.correct(w, nw, a, b / c);
+                }
+            } else {
+                for (int j = 0; j < nw; ++j) {
+                    w[j] /= a;
                 }
             }
-            double ys = 0;
-            for (int j = nleft, jw = 0; j <= nright; ++j, ++jw) {
-                if (w[jw] != 0) {
-                    ys += w[jw] * y.get(j);
+            return true;
+        }
+    }
+
+    private static boolean isComplete(IDataGetter y) {
+        for (int i = y.getStart(); i < y.getEnd(); ++i) {
+            if (!Double.isFinite(y.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the table of the weights for series of length n. The tables
+     * for the two last lengths are kept (the cycle-subseries used in the
+     * seasonal filter have at most two different lengths)
+     *
+     * @param n
+     * @param kernel
+     * @return
+     */
+    private WeightsTable table(int n, DoubleUnaryOperator kernel) {
+        if (tables[0] != null && tables[0].n == n) {
+            return tables[0];
+        }
+        WeightsTable t = tables[1];
+        if (t == null || t.n != n) {
+            t = new WeightsTable(n, kernel);
+        }
+        tables[1] = tables[0];
+        tables[0] = t;
+        return t;
+    }
+
+    /**
+     * Weights of the loess filter when the series doesn't contain missing
+     * values and when no user weights are provided. In that case, the weights
+     * only depend on the length of the series and on the position of the
+     * estimate in the window. The weights are computed on demand: the
+     * symmetric weights (interior points) and the asymmetric weights (end
+     * points). They are stored without their leading and trailing zeroes
+     */
+    private final class WeightsTable {
+
+        private final int n;
+        private final DoubleUnaryOperator kernel;
+        private final double[][] weights;
+        private final int[] starts;
+
+        private WeightsTable(int n, DoubleUnaryOperator kernel) {
+            int win = spec.getWindow();
+            this.n = n;
+            this.kernel = kernel;
+            this.weights = new double[win][];
+            this.starts = new int[win];
+        }
+
+        double[] weights(int pos) {
+            double[] cur = weights[pos];
+            if (cur == null) {
+                int win = spec.getWindow();
+                LoessFilter.this.weights(null, n, pos, 0, win - 1, kernel, null, w);
+                int j0 = 0, j1 = win;
+                while (j0 < j1 && w[j0] == 0) {
+                    ++j0;
+                }
+                while (j1 > j0 && w[j1 - 1] == 0) {
+                    --j1;
                 }
+                cur = new double[j1 - j0];
+                System.arraycopy(w, j0, cur, 0, cur.length);
+                weights[pos] = cur;
+                starts[pos] = j0;
             }
-            return ys;
+            return cur;
+        }
+
+        int start(int pos) {
+            return starts[pos];
         }
     }
 
@@ -247,4 +430,14 @@ public class LoessFilter {
         return spec;
     }
 
+    /**
+     * Kernel used by the loess filters (plain or vectorized loops, see
+     * LoessKernels). For internal use only (diagnostics and tests).
+     *
+     * @return
+     */
+    public static LoessKernel getKernel() {
+        return KERNEL;
+    }
+
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+/**
+ * Loops of the loess estimator on the weights of a window (normalization,
+ * correction of the local linear fit and final estimate). The positions in
+ * the window are 0, 1, ..., n-1.
+ *
+ * The implementation used by the loess filters is selected at runtime (see
+ * LoessKernels): plain loops or vectorized loops (module
+ * jdplus-stl-base-vector).
+ *
+ * For internal use only.
+ *
+ * @author Jean Palate
+ */
+public interface LoessKernel {
+
+    /**
+     * Divides the weights by their sum
+     *
+     * @param w The weights
+     * @param n The length of the window
+     * @param s The sum of the weights
+     * @return The mean position (sum(w[j]*j) after the normalization)
+     */
+    double normalize(double[] w, int n, double s);
+
+    /**
+     *
+     * @param w The normalized weights
+     * @param n The length of the window
+     * @param a The mean position
+     * @return sum(w[j]*(j-a)^2)
+     */
+    double spread(double[] w, int n, double a);
+
+    /**
+     * Correction of the weights for a local linear fit: w[j] *= b*(j-a)+1
+     *
+     * @param w The normalized weights
+     * @param n The length of the window
+     * @param a The mean position
+     * @param b The slope of the correction
+     */
+    void correct(double[] w, int n, double a, double b);
+
+    /**
+     *
+     * @param w The weights
+     * @param y The data
+     * @param n The length of the window
+     * @return sum(w[j]*y[j])
+     */
+    double dot(double[] w, double[] y, int n);
+}
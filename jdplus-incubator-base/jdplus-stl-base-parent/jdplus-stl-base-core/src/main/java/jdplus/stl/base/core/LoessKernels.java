@@ -0,0 +1,105 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+/**
+ * Selection of the loess kernel. The vectorized kernel
+ * (jdplus.stl.base.vector.VectorLoessKernel, based on the incubating Vector
+ * API) is used when
+ * <ul>
+ * <li>the module jdk.incubator.vector is resolved (--add-modules
+ * jdk.incubator.vector)</li>
+ * <li>the module jdplus-stl-base-vector is on the class path or it is resolved
+ * on the module path (--add-modules jdplus.stl.base.vector)</li>
+ * <li>the property jdplus.stl.vector is not set to false</li>
+ * </ul>
+ * Otherwise, the loess filters use plain loops. The selection is done once,
+ * when the class is loaded.
+ *
+ * @author Jean Palate
+ */
+@lombok.experimental.UtilityClass
+class LoessKernels {
+
+    static final String VECTOR_PROPERTY = "jdplus.stl.vector";
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "jdplus.stl.base.vector.VectorLoessKernel";
+
+    /**
+     * Plain loops
+     */
+    final LoessKernel SCALAR = new Scalar();
+
+    /**
+     * The kernel used by the loess filters
+     */
+    final LoessKernel DEFAULT = load();
+
+    private LoessKernel load() {
+        if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))
+                || ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return SCALAR;
+        }
+        try {
+            Class<?> kernel = Class.forName(VECTOR_KERNEL, true, LoessKernels.class.getClassLoader());
+            return (LoessKernel) kernel.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException ex) {
+            // not available or not supported by the platform
+            return SCALAR;
+        }
+    }
+
+    private static final class Scalar implements LoessKernel {
+
+        @Override
+        public double normalize(double[] w, int n, double s) {
+            double a = 0;
+            for (int j = 0; j < n; ++j) {
+                double wj = w[j] / s;
+                w[j] = wj;
+                a += wj * j;
+            }
+            return a;
+        }
+
+        @Override
+        public double spread(double[] w, int n, double a) {
+            double c = 0;
+            for (int j = 0; j < n; ++j) {
+                double ja = j - a;
+                c += w[j] * ja * ja;
+            }
+            return c;
+        }
+
+        @Override
+        public void correct(double[] w, int n, double a, double b) {
+            for (int j = 0; j < n; ++j) {
+                w[j] *= b * (j - a) + 1;
+            }
+        }
+
+        @Override
+        public double dot(double[] w, double[] y, int n) {
+            double s = 0;
+            for (int j = 0; j < n; ++j) {
+                s += w[j] * y[j];
+            }
+            return s;
+        }
+    }
+}
@@ -27,28 +27,110 @@ public class LowPassLoessFilter {
 
     private final LoessFilter filter;
     private final int np;
+    private final StlWorkspace ws;
+    // last values of the first and of the second moving averages
+    private final double[] r1, r2 = new double[3];
 
     public LowPassLoessFilter(LoessSpec spec, int np) {
         this.filter = new LoessFilter(spec);
         this.np = np;
+        this.ws = null;
+        this.r1 = new double[np];
+    }
+
+    /**
+     * Low-pass filter that uses the buffers of a workspace. The buffers are
+     * only used when the length of the input is compatible with the workspace
+     * (n+2*np)
+     *
+     * @param spec
+     * @param np
+     * @param ws
+     */
+    public LowPassLoessFilter(LoessSpec spec, int np, StlWorkspace ws) {
+        this.filter = new LoessFilter(spec, ws);
+        this.np = np;
+        this.ws = ws;
+        this.r1 = new double[np];
+    }
+
+    /**
+     * See LoessFilter.setRangeOffset
+     *
+     * @param offset The number of observations that precede the data in the
+     * complete series
+     */
+    void setRangeOffset(int offset) {
+        filter.setRangeOffset(offset);
     }
 
     public boolean filter(IDataGetter x, IDataSelector t) {
-        // moving averages...
         int n = x.getLength();
-        double[] w1 = new double[n - np + 1];
-        double[] w2 = new double[n - 2 * np + 2];
-        double[] w3 = new double[n - 2 * np];
-        // moving average on np
-        ma(np, x, IDataSelector.of(w1));
-        // moving average on np
-        ma(np, IDataGetter.of(w1), IDataSelector.of(w2));
-        // moving average on 3
-        ma(3, IDataGetter.of(w2), IDataSelector.of(w3));
-        filter.filter(IDataGetter.of(w3), null, t);
+        double[] w;
+        if (ws != null && ws.isCompatible(n - 2 * np, np)) {
+            w = ws.ma;
+        } else {
+            w = new double[n - 2 * np];
+        }
+        movingAverages(x, w);
+        filter.filter(IDataGetter.of(w), null, t);
         return true;
     }
 
+    /**
+     * Moving averages on np, on np and on 3 (in this order), computed in a
+     * single pass with running sums. Only the last np (resp. 3) values of the
+     * first (resp. second) average are kept, so that the cost is O(n) whatever
+     * the periodicity and that the output is the only buffer of length n. The
+     * results are identical to those of three successive calls to ma.
+     *
+     * @param x The input (n values)
+     * @param ave The output. Contains n-2*np values on exit
+     */
+    public void movingAverages(IDataGetter x, double[] ave) {
+        int n = x.getLength(), i0 = x.getStart();
+        int n1 = n - np + 1;
+        double fnp = np, v = 0, v1 = 0, v2 = 0;
+        for (int i = 0; i < np; ++i) {
+            v += x.get(i0 + i);
+        }
+        // k1, m3: positions of the current values in the circular buffers r1, r2
+        for (int k = 0, k1 = 0, m = 0, m3 = 0; k < n1; ++k) {
+            // k-th value of the first average
+            if (k > 0) {
+                v += x.get(i0 + k + np - 1) - x.get(i0 + k - 1);
+            }
+            double a1 = v / fnp;
+            if (k < np) {
+                v1 += a1;
+            } else {
+                v1 += a1 - r1[k1];
+            }
+            r1[k1] = a1;
+            if (++k1 == np) {
+                k1 = 0;
+            }
+            if (k < np - 1) {
+                continue;
+            }
+            // m-th value of the second average (m = k-np+1)
+            double a2 = v1 / fnp;
+            if (m < 3) {
+                v2 += a2;
+            } else {
+                v2 += a2 - r2[m3];
+            }
+            r2[m3] = a2;
+            if (++m3 == 3) {
+                m3 = 0;
+            }
+            if (m >= 2) {
+                ave[m - 2] = v2 / 3;
+            }
+            ++m;
+        }
+    }
+
     public void ma(int len, IDataGetter x, IDataSelector ave) {
         int n = x.getLength();
         int newn = n - len + 1;
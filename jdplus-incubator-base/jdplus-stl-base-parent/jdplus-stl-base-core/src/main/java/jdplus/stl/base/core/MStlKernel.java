@@ -49,25 +49,84 @@ public class MStlKernel {
     protected double[] irr;
     protected double[] weights;
     protected double[] fit, sa, seasonal, si;
+    // buffer and selection used for the median of the residuals
+    private double[] rbuffer;
+    private final PartialSort psort = new PartialSort();
+    // previous iterations (only used with a convergence tolerance)
+    private double[] ptrend, pweights;
+    private double[][] pseason;
+    private int innerIterations, outerIterations;
+    private boolean stable;
+    // seasonal filters and their workspaces (one by period), reused in all the loops
+    private StlWorkspace[] sws;
+    private SeasonalFilter[] sfilters;
+    // partial refiltering of the cycle-subseries (only used with a reuse tolerance)
+    // smoothed (extended) cycle-subseries, input and weights of their last filtering
+    private double[][] sc, sinput, sweights;
+    private boolean[] selection;
+    private long nsubseries, nskipped;
 
     public MStlResults process(DoubleSeq data) {
 
         if (!initializeProcessing(data)) {
             return null;
         }
+        boolean check = spec.getConvergenceTolerance() > 0;
         int istep = 0;
         do {
             innerLoop();
-            if (++istep > spec.getOuterLoopsCount()) {
+            if (++istep > spec.getOuterLoopsCount() || stable) {
                 return finishProcessing();
             }
-        if (weights == null) {
-            weights = new double[data.length()];
-        }
+            boolean wcheck = check && weights != null;
+            if (weights == null) {
+                weights = new double[data.length()];
+            } else if (wcheck) {
+                if (pweights == null) {
+                    pweights = new double[weights.length];
+                }
+                System.arraycopy(weights, 0, pweights, 0, weights.length);
+            }
             computeRobustWeights(fit, weights);
+            ++outerIterations;
+            if (wcheck && change(pweights, weights) <= spec.getConvergenceTolerance()) {
+                // the last inner loop used (almost) the same weights
+                return finishProcessing();
+            }
         } while (true);
     }
 
+    /**
+     * Relative change between two iterations: max|cur-prev|/(max(cur)-min(cur))
+     *
+     * @param prev
+     * @param cur
+     * @return
+     */
+    private static double change(double[] prev, double[] cur) {
+        double dmax = 0, cmin = Double.MAX_VALUE, cmax = -Double.MAX_VALUE;
+        for (int i = 0; i < cur.length; ++i) {
+            double c = cur[i];
+            if (Double.isFinite(c)) {
+                double d = Math.abs(c - prev[i]);
+                if (d > dmax) {
+                    dmax = d;
+                }
+                if (c < cmin) {
+                    cmin = c;
+                }
+                if (c > cmax) {
+                    cmax = c;
+                }
+            }
+        }
+        if (dmax == 0) {
+            return 0;
+        }
+        double range = cmax - cmin;
+        return range > 0 ? dmax / range : Double.POSITIVE_INFINITY;
+    }
+
     private MStlResults finishProcessing() {
         int n = y.length;
         for (int i = 0; i < n; ++i) {
@@ -78,6 +137,9 @@ public class MStlKernel {
             }
         }
         MStlResults.Builder builder = MStlResults.builder()
+                .innerIterations(innerIterations)
+                .outerIterations(outerIterations)
+                .skippedSubseries(nsubseries == 0 ? 0 : (double) nskipped / nsubseries)
                 .series(DoubleSeq.of(y))
                 .trend(DoubleSeq.of(trend))
                 .sa(DoubleSeq.of(sa))
@@ -110,13 +172,51 @@ public class MStlKernel {
         fit = new double[n];
         sa = new double[n];
         si = new double[n];
+        weights = null;
+        innerIterations = 0;
+        outerIterations = 0;
+        if (spec.getConvergenceTolerance() > 0) {
+            ptrend = new double[n];
+            pseason = new double[nseas][];
+            for (int i = 0; i < nseas; ++i) {
+                pseason[i] = new double[n];
+            }
+        }
+        nsubseries = 0;
+        nskipped = 0;
+        sws = new StlWorkspace[nseas];
+        sfilters = new SeasonalFilter[nseas];
+        for (int i = 0; i < nseas; ++i) {
+            SeasonalSpec sspec = spec.getSeasonalSpecs().get(i);
+            sws[i] = StlWorkspace.of(n, sspec.getPeriod());
+            sfilters[i] = SeasonalFilter.of(sspec, sws[i]);
+        }
+        if (spec.getSeasonalReuseTolerance() > 0) {
+            sc = new double[nseas][];
+            sinput = new double[nseas][];
+            sweights = new double[nseas][];
+            int pmax = 0;
+            for (int i = 0; i < nseas; ++i) {
+                int np = spec.getSeasonalSpecs().get(i).getPeriod();
+                // the extended cycle-subseries of the workspace are not used by the partial filtering
+                sc[i] = sws[i].c;
+                sinput[i] = new double[n];
+                sweights[i] = new double[n];
+                pmax = Math.max(pmax, np);
+            }
+            selection = new boolean[pmax];
+        }
         return true;
     }
 
-    private static double mad(double[] r) {
-        double[] sr = r.clone();
-        Arrays.sort(sr);
+    private double mad(double[] r) {
         int n = r.length;
+        if (rbuffer == null || rbuffer.length != n) {
+            rbuffer = new double[n];
+        }
+        double[] sr = rbuffer;
+        System.arraycopy(r, 0, sr, 0, n);
+        psort.median(sr, n);
         int n2 = n >> 1;
         if (n % 2 != 0) {
             return 6 * sr[n2];
@@ -159,13 +259,28 @@ public class MStlKernel {
     protected void innerLoop() {
         // Step 1: SI=Y-T
 
+        // the first iteration is compared with the end of the previous outer loop
+        boolean check = spec.getConvergenceTolerance() > 0;
+        boolean reuse = spec.getSeasonalReuseTolerance() > 0;
+        stable = false;
         for (int j = 0; j < spec.getInnerLoopsCount(); ++j) {
+            boolean cur = check && (j > 0 || weights != null);
+            if (cur) {
+                System.arraycopy(trend, 0, ptrend, 0, trend.length);
+                for (int s = 0; s < season.length; ++s) {
+                    System.arraycopy(season[s], 0, pseason[s], 0, trend.length);
+                }
+            }
             invop(y, trend, si);
             // compute S
             int s = 0;
             for (SeasonalSpec sspec : spec.getSeasonalSpecs()) {
-                SeasonalFilter sfilter = SeasonalFilter.of(sspec);
-                sfilter.filter(IDataGetter.of(si), weights == null ? null : k -> weights[k], spec.isMultiplicative(), IDataSelector.of(season[s]));
+                if (reuse) {
+                    boolean[] sel = select(s, sspec.getPeriod());
+                    sfilters[s].filter(IDataGetter.of(si), weights == null ? null : k -> weights[k], spec.isMultiplicative(), sc[s], sel, IDataSelector.of(season[s]));
+                } else {
+                    sfilters[s].filter(IDataGetter.of(si), weights == null ? null : k -> weights[k], spec.isMultiplicative(), IDataSelector.of(season[s]));
+                }
                 if (s == 0) {
                     seasonal = season[0].clone();
                 } else {
@@ -182,7 +297,80 @@ public class MStlKernel {
             LoessFilter tfilter = new LoessFilter(spec.getTrendSpec());
             tfilter.filter(IDataSelector.of(sa), weights == null ? null : k -> weights[k], IDataSelector.of(trend));
             op(trend, seasonal, fit);
+            ++innerIterations;
+            if (cur && converged()) {
+                // new robust weights without effect on the components
+                stable = j == 0;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Selects the cycle-subseries of the s-th seasonal component that must be
+     * refiltered and saves their current input and weights. Without robust
+     * weights, all the cycle-subseries are refiltered.
+     *
+     * @param s The position of the seasonal component
+     * @param np The period
+     * @return The selection or null if all the cycle-subseries are selected
+     */
+    private boolean[] select(int s, int np) {
+        int n = y.length;
+        double[] input = sinput[s], w = sweights[s];
+        if (weights == null) {
+            System.arraycopy(si, 0, input, 0, n);
+            Arrays.fill(w, 1);
+            return null;
         }
+        double smin = Double.MAX_VALUE, smax = -Double.MAX_VALUE;
+        for (int i = 0; i < n; ++i) {
+            double c = si[i];
+            if (Double.isFinite(c)) {
+                if (c < smin) {
+                    smin = c;
+                }
+                if (c > smax) {
+                    smax = c;
+                }
+            }
+        }
+        // the weights are in [0, 1]
+        double weps = spec.getSeasonalReuseTolerance();
+        double eps = smax >= smin ? weps * (smax - smin) : 0;
+        for (int j = 0; j < np; ++j) {
+            boolean changed = false;
+            for (int i = j; i < n; i += np) {
+                if (Math.abs(weights[i] - w[i]) > weps || Math.abs(si[i] - input[i]) > eps) {
+                    changed = true;
+                    break;
+                }
+            }
+            if (changed) {
+                for (int i = j; i < n; i += np) {
+                    input[i] = si[i];
+                    w[i] = weights[i];
+                }
+            } else {
+                ++nskipped;
+            }
+            selection[j] = changed;
+        }
+        nsubseries += np;
+        return selection;
+    }
+
+    private boolean converged() {
+        double eps = spec.getConvergenceTolerance();
+        if (change(ptrend, trend) > eps) {
+            return false;
+        }
+        for (int s = 0; s < season.length; ++s) {
+            if (change(pseason[s], season[s]) > eps) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
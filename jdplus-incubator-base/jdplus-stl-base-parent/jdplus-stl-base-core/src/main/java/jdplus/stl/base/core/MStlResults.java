@@ -45,6 +45,22 @@ public class MStlResults implements GenericExplorable {
     DoubleSeq irregular;
     DoubleSeq fit;
     DoubleSeq weights;
+    /**
+     * Numbers of iterations actually used: total number of inner iterations
+     * and number of computations of the robust weights
+     */
+    int innerIterations, outerIterations;
+    /**
+     * Fraction of the cycle-subseries that were not refiltered in the robust
+     * iterations (see MStlSpec.getSeasonalReuseTolerance())
+     */
+    double skippedSubseries;
+    /**
+     * Processing time (in nanoseconds) of each period. Only provided by the
+     * iterative STL (see IStlPipeline)
+     */
+    @lombok.Singular
+    Map<Integer, Long> processingTimes;
     
     public DoubleSeq seasonal(){
         if (seasons.isEmpty())
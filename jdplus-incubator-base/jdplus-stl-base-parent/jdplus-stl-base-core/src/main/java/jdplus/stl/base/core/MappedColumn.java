@@ -0,0 +1,209 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+
+/**
+ * Column file of a results store: one component for a set of series of the
+ * same length.
+ *
+ * Layout (little endian): a header of 32 bytes (magic number, version, number
+ * of series, length of the series, unused), followed by the series, one after
+ * the other. The file is mapped in segments of at most 1 GB, which contain an
+ * integer number of series, so that the size of the file is not limited by
+ * the size of a mapped buffer.
+ *
+ * The mappings are released by the garbage collector, when the column and
+ * the views on its series are no longer referenced; closing the column only
+ * drops its own references, so that a view that is still used never reads
+ * unmapped memory. On some platforms, the files can't be deleted as long as
+ * they are mapped. The column can't be used after it has been closed.
+ *
+ * @author Jean Palate
+ */
+final class MappedColumn {
+
+    static final int MAGIC = 0x53544C43, VERSION = 1, HEADER = 32;
+    private static final long MAX_SEGMENT = 1L << 30;
+    private final int nseries, length, nper;
+    private final MappedByteBuffer[] buffers;
+    private final DoubleBuffer[] segments;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new column file (an existing file is overwritten)
+     *
+     * @param file
+     * @param nseries Number of series
+     * @param length Length of the series
+     * @return
+     * @throws IOException
+     */
+    static MappedColumn create(Path file, int nseries, int length) throws IOException {
+        if (nseries <= 0 || length <= 0) {
+            throw new IllegalArgumentException("STL");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(nseries).putInt(length).rewind();
+            channel.write(header, 0);
+            return new MappedColumn(channel, FileChannel.MapMode.READ_WRITE, nseries, length);
+        }
+    }
+
+    /**
+     * Opens an existing column file in read-only mode
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    static MappedColumn open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(header, 0) != HEADER) {
+                throw new IOException("Invalid column file: " + file);
+            }
+            header.rewind();
+            int magic = header.getInt(), version = header.getInt(), nseries = header.getInt(), length = header.getInt();
+            if (magic != MAGIC || version != VERSION || nseries <= 0 || length <= 0
+                    || channel.size() < HEADER + 8L * nseries * length) {
+                throw new IOException("Invalid column file: " + file);
+            }
+            return new MappedColumn(channel, FileChannel.MapMode.READ_ONLY, nseries, length);
+        }
+    }
+
+    // The mappings remain valid after the channel is closed
+    private MappedColumn(FileChannel channel, FileChannel.MapMode mode, int nseries, int length) throws IOException {
+        this.nseries = nseries;
+        this.length = length;
+        long slen = 8L * length;
+        this.nper = (int) Math.max(1, Math.min(nseries, MAX_SEGMENT / slen));
+        int nsegments = (nseries + nper - 1) / nper;
+        buffers = new MappedByteBuffer[nsegments];
+        segments = new DoubleBuffer[nsegments];
+        for (int i = 0; i < nsegments; ++i) {
+            int ns = Math.min(nper, nseries - i * nper);
+            buffers[i] = channel.map(mode, HEADER + i * nper * slen, ns * slen);
+            segments[i] = buffers[i].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        }
+    }
+
+    int getSeriesCount() {
+        return nseries;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    private DoubleBuffer segment(int series) {
+        if (closed) {
+            throw new IllegalStateException("Closed column");
+        }
+        if (series < 0 || series >= nseries) {
+            throw new IndexOutOfBoundsException(series);
+        }
+        return segments[series / nper];
+    }
+
+    private int start(int series) {
+        return (series % nper) * length;
+    }
+
+    /**
+     * Writes a series. Different series can be written concurrently
+     *
+     * @param series Position of the series
+     * @param data Buffer containing the series (length values)
+     */
+    void put(int series, double[] data) {
+        segment(series).put(start(series), data, 0, length);
+    }
+
+    void put(int series, DoubleSeq data) {
+        if (data.length() != length) {
+            throw new IllegalArgumentException("STL");
+        }
+        DoubleBuffer db = segment(series);
+        int start = start(series);
+        for (int i = 0; i < length; ++i) {
+            db.put(start + i, data.get(i));
+        }
+    }
+
+    void fill(int series, double value) {
+        DoubleBuffer db = segment(series);
+        int start = start(series);
+        for (int i = 0; i < length; ++i) {
+            db.put(start + i, value);
+        }
+    }
+
+    /**
+     * View on a series (no copy)
+     *
+     * @param series
+     * @return
+     */
+    DoubleSeq get(int series) {
+        DoubleBuffer db = segment(series);
+        int start = start(series);
+        return DoubleSeq.onMapping(length, i -> {
+            if (closed) {
+                throw new IllegalStateException("Closed column");
+            }
+            return db.get(start + i);
+        });
+    }
+
+    void force() {
+        if (closed) {
+            throw new IllegalStateException("Closed column");
+        }
+        for (MappedByteBuffer buffer : buffers) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * The column (and the views on its series) can't be used anymore. The
+     * mappings are not released explicitly: they are released by the garbage
+     * collector once the views on the series are no longer referenced
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (int i = 0; i < buffers.length; ++i) {
+            buffers[i] = null;
+            segments[i] = null;
+        }
+    }
+}
@@ -28,11 +28,13 @@ public class PartialSort {
     private int n, ni, jl, ju, i, j, k, l, m;
 
     private final int[] indl = new int[BUFFER_LENGTH], indu = new int[BUFFER_LENGTH], il = new int[BUFFER_LENGTH], iu = new int[BUFFER_LENGTH];
+    // positions of the median(s), reused between calls
+    private final int[] odd = new int[1], even = new int[2];
 
-    private boolean initialize(double[] a, int[] ind) {
+    private boolean initialize(double[] a, int n, int[] ind) {
         this.a = a;
         this.ind = ind;
-        n = a.length;
+        this.n = n;
         ni = ind.length;
         if (n < 2 || ni == 0) {
             return false;
@@ -216,11 +218,54 @@ public class PartialSort {
     }
 
     public void psort(double[] a, int[] ind) {
-        if (!initialize(a, ind)) {
+        psort(a, a.length, ind);
+    }
+
+    /**
+     * Partial sort of the n first elements of a. On exit, a[ind[i]] contains
+     * the same value as in the fully sorted array. The indices should be
+     * sorted in increasing order
+     *
+     * @param a The array. Only the first n elements are considered
+     * @param n The number of elements to be sorted
+     * @param ind The requested positions
+     */
+    public void psort(double[] a, int n, int[] ind) {
+        if (n > a.length || !initialize(a, n, ind)) {
             throw new IllegalArgumentException("psort");
         }
         mainLoop();
     }
+
+    /**
+     * Puts the central element(s) of the n first elements of a at their sorted
+     * position: a[n/2] if n is odd, a[n/2-1] and a[n/2] if n is even. The
+     * selection is done in linear time (on average) and doesn't allocate any
+     * memory, so that the same object can be used repeatedly on the same
+     * buffer.
+     *
+     * @param a The array. Only the first n elements are considered
+     * @param n The number of elements
+     */
+    public void median(double[] a, int n) {
+        if (n < 3) {
+            if (n == 2 && a[0] > a[1]) {
+                double t = a[0];
+                a[0] = a[1];
+                a[1] = t;
+            }
+            return;
+        }
+        int n2 = n >> 1;
+        if (n % 2 != 0) {
+            odd[0] = n2;
+            psort(a, n, odd);
+        } else {
+            even[0] = n2 - 1;
+            even[1] = n2;
+            psort(a, n, even);
+        }
+    }
 //        int p;
 //        double tt;
 //        boolean skip = true;
@@ -18,7 +18,10 @@ package jdplus.stl.base.core;
 
 import java.util.Arrays;
 import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntToDoubleFunction;
 import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.stl.base.api.LoessSpec;
+import jdplus.stl.base.api.SeasonalSpec;
 import jdplus.stl.base.api.StlSpec;
 
 /**
@@ -28,42 +31,226 @@ import jdplus.stl.base.api.StlSpec;
  * Seasonal-Trend Decomposition Procedure Based on Loess, Statistics Research
  * Report, AT&T Bell Laboratories.
  *
+ * The kernel uses a workspace (see StlWorkspace) for all its computations.
+ * The workspace is reused when the kernel processes successive series of the
+ * same length, so that the decomposition of such series doesn't need any new
+ * allocation (except for the final results).
+ * Consequently, a kernel should not be used concurrently by several threads.
+ *
  * @author Jean Palate
  */
 public class RawStlKernel {
 
     public RawStlKernel(StlSpec spec) {
+        this(spec, false);
+    }
+
+    /**
+     *
+     * @param spec
+     * @param parallel Parallel filtering of the cycle-subseries in the seasonal
+     * filter (only used for long series)
+     */
+    public RawStlKernel(StlSpec spec, boolean parallel) {
         this.spec = spec;
+        this.parallel = parallel;
     }
 
     private final StlSpec spec;
+    private final boolean parallel;
 
     private double[] y, season, trend, irr, weights, fit, si, sa;
     private int nmissing;
+    private final IntToDoubleFunction rw = k -> weights[k];
+    // selection of the median of the residuals (robust weights)
+    private final PartialSort psort = new PartialSort();
+    // workspace and filters, reused as long as the length of the series doesn't change
+    private StlWorkspace ws;
+    private SeasonalFilter sfilter;
+    private LoessFilter tfilter;
+    // kernel used for the incremental updates
+    private RawStlKernel tail;
+    // position of the processed data in the complete series (incremental updates)
+    private int offset;
 
     private int n() {
         return y.length;
     }
 
     public RawStlResults process(DoubleSeq data) {
-        if (!initializeProcessing(data)) {
+        if (!decompose(data)) {
+            return null;
+        }
+        return results();
+    }
+
+    /**
+     * Incremental update of a previous decomposition, when new observations
+     * are appended to the series.
+     * Because the loess filters are local, only the end of the components is
+     * significantly modified by the new observations. The update decomposes a
+     * segment at the end of the extended series, which covers the new
+     * observations, the part of the series modified by them and an additional
+     * margin (span x number of inner loops) that absorbs the boundary effects
+     * of the segment. The modifications spread backwards by about half a span
+     * (see getUpdateSpan) at each inner loop, so that the last (new
+     * observations + span x ceil(inner loops / 2)) points of the components
+     * are taken from that decomposition; the other points (and their robust
+     * weights) are kept from the previous results.
+     * Without robust weights, the update gives the same results as the full
+     * processing (up to rounding errors). Otherwise, it is an approximation:
+     * the robust weights only take into account the residuals of the segment.
+     * A full processing is done when the number of successive updates reaches
+     * the given limit or when the series is too short.
+     *
+     * @param previous The results of a previous processing (full or
+     * incremental) with the same specification
+     * @param newObservations The new observations
+     * @param maxUpdates The maximum number of successive incremental updates.
+     * 0 to force a full processing
+     * @return
+     */
+    public RawStlResults update(RawStlResults previous, DoubleSeq newObservations, int maxUpdates) {
+        int n = previous.getSeries().length(), m = newObservations.length(), nall = n + m;
+        if (m == 0) {
+            return previous;
+        }
+        double[] yall = new double[nall];
+        previous.getSeries().copyTo(yall, 0);
+        newObservations.copyTo(yall, n);
+        int span = getUpdateSpan(), nin = Math.max(1, spec.getInnerLoopsCount());
+        // first position of the updated components. The modifications spread
+        // backwards by about half a span at each inner loop
+        int t0 = nall - m - span * ((nin + 1) / 2);
+        // first position of the segment, aligned on the cycles and on the jumps of the filters
+        int s0 = t0 - span * nin;
+        if (s0 > 0) {
+            s0 -= s0 % getUpdateAlignment();
+        }
+        if (previous.getUpdates() >= maxUpdates || s0 <= 0) {
+            return process(DoubleSeq.of(yall));
+        }
+        if (tail == null) {
+            tail = new RawStlKernel(spec, parallel);
+        }
+        tail.offset = s0;
+        if (!tail.decompose(DoubleSeq.of(yall, s0, nall - s0))) {
             return null;
         }
+        StlWorkspace tws = tail.getWorkspace();
+        return RawStlResults.builder()
+                .series(DoubleSeq.of(yall))
+                .trend(splice(previous.getTrend(), tws.trend, s0, t0, nall))
+                .irregular(splice(previous.getIrregular(), tws.irr, s0, t0, nall))
+                .fit(splice(previous.getFit(), tws.fit, s0, t0, nall))
+                .seasonal(splice(previous.getSeasonal(), tws.season, s0, t0, nall))
+                .weights(tail.hasRobustWeights() ? splice(previous.getWeights(), tws.weights, s0, t0, nall)
+                        : splice(previous.getWeights(), null, s0, t0, nall))
+                .sa(splice(previous.getSa(), tws.sa, s0, t0, nall))
+                .updates(previous.getUpdates() + 1)
+                .build();
+    }
+
+    /**
+     * Number of observations at the end of the series that are influenced by
+     * new observations. The span is an upper bound computed on the windows
+     * (and the jumps) of the seasonal filter (in cycles), of the low-pass
+     * filter (moving averages and loess) and of the trend filter.
+     *
+     * @return
+     */
+    public int getUpdateSpan() {
+        SeasonalSpec sspec = spec.getSeasonalSpec();
+        LoessSpec s = sspec.getSeasonalSpec(), l = sspec.getLowPassSpec(), t = spec.getTrendSpec();
+        int np = sspec.getPeriod();
+        return np * (s.getWindow() + s.getJump() + 1)
+                + 2 * np + 3 + l.getWindow() + l.getJump()
+                + t.getWindow() + t.getJump();
+    }
+
+    /**
+     * The loess filters with jumps are estimated on a regular grid, which must
+     * be the same in the full series and in the updated segment
+     *
+     * @return
+     */
+    private int getUpdateAlignment() {
+        SeasonalSpec sspec = spec.getSeasonalSpec();
+        int a = sspec.getPeriod() * (1 + sspec.getSeasonalSpec().getJump());
+        a = lcm(a, 1 + sspec.getLowPassSpec().getJump());
+        return lcm(a, 1 + spec.getTrendSpec().getJump());
+    }
+
+    private static int lcm(int a, int b) {
+        int x = a, y = b;
+        while (y != 0) {
+            int t = x % y;
+            x = y;
+            y = t;
+        }
+        return a / x * b;
+    }
+
+    private static DoubleSeq splice(DoubleSeq prev, double[] tail, int s0, int t0, int n) {
+        double[] z = new double[n];
+        prev.extract(0, t0).copyTo(z, 0);
+        if (tail == null) {
+            Arrays.fill(z, t0, n, 1);
+        } else {
+            System.arraycopy(tail, t0 - s0, z, t0, n - t0);
+        }
+        return DoubleSeq.of(z);
+    }
+
+    /**
+     * Decomposes the series. The components are left in the workspace of the
+     * kernel; they are overwritten by the next processing
+     *
+     * @param data
+     * @return
+     */
+    boolean decompose(DoubleSeq data) {
+        if (!initializeProcessing(data)) {
+            return false;
+        }
         int istep = 0;
         do {
             innerLoop();
             if (++istep > spec.getOuterLoopsCount()) {
-                return finishProcessing();
+                finishProcessing();
+                return true;
             }
             if (weights == null) {
-                weights = new double[n()];
+                weights = ws.weights;
             }
             op(trend, season, fit);
             computeRobustWeights();
         } while (true);
     }
 
-    private RawStlResults finishProcessing() {
+    /**
+     * Robust weights are only computed when outer loops are used
+     *
+     * @return
+     */
+    boolean hasRobustWeights() {
+        return weights != null;
+    }
+
+    private RawStlResults results() {
+        int n = y.length;
+        return RawStlResults.builder()
+                .series(DoubleSeq.of(y))
+                .trend(DoubleSeq.of(trend))
+                .irregular(DoubleSeq.of(irr))
+                .fit(DoubleSeq.of(fit))
+                .seasonal(DoubleSeq.of(season))
+                .weights(weights == null ? DoubleSeq.onMapping(n, x -> 1.0) : DoubleSeq.of(weights))
+                .sa(DoubleSeq.of(sa))
+                .build();
+    }
+
+    private void finishProcessing() {
         int n = y.length;
         if (spec.isMultiplicative()) {
             for (int i = 0; i < n; ++i) {
@@ -84,66 +271,67 @@ public class RawStlKernel {
                 }
             }
         }
-        return RawStlResults.builder()
-                .series(DoubleSeq.of(y))
-                .trend(DoubleSeq.of(trend))
-                .irregular(DoubleSeq.of(irr))
-                .fit(DoubleSeq.of(fit))
-                .seasonal(DoubleSeq.of(season))
-                .weights(weights == null ? DoubleSeq.onMapping(n, x -> 1.0) : DoubleSeq.of(weights))
-                .sa(DoubleSeq.of(sa))
-                .build();
     }
 
     private boolean initializeProcessing(DoubleSeq data) {
 
         int n = data.length();
+        int np = spec.getSeasonalSpec().getPeriod();
+        if (ws == null || !ws.isCompatible(n, np)) {
+            ws = StlWorkspace.of(n, np);
+            sfilter = SeasonalFilter.of(spec.getSeasonalSpec(), ws, parallel);
+            tfilter = new LoessFilter(spec.getTrendSpec(), ws);
+        }
+        sfilter.setRangeOffset(offset);
+        tfilter.setRangeOffset(offset);
         nmissing = data.count(z -> !Double.isFinite(z));
-        y = new double[n];
+        y = ws.y;
         data.copyTo(y, 0);
-        fit = new double[n];
-        season = new double[n];
-        trend = new double[n];
-        if (spec.isMultiplicative()) {
-            Arrays.setAll(trend, i -> 1);
-        }
-        irr = new double[n];
-        si = new double[n];
-        sa = new double[n];
+        fit = ws.fit;
+        season = ws.season;
+        trend = ws.trend;
+        Arrays.fill(trend, mean());
+        irr = ws.irr;
+        si = ws.si;
+        sa = ws.sa;
         weights = null;
         return true;
     }
 
+    /**
+     * Returns the workspace used in the last processing. The workspace
+     * is reused by the kernel for the next series of the same length
+     *
+     * @return
+     */
+    public StlWorkspace getWorkspace() {
+        return ws;
+    }
+
+    public StlSpec getSpec() {
+        return spec;
+    }
+
     private double mad() {
-        double[] sr;
+        double[] sr = ws.buffer;
+        int n = n();
         if (nmissing == 0) {
-            sr = weights.clone();
+            System.arraycopy(weights, 0, sr, 0, n);
         } else {
-            int n = n();
-            sr = new double[n - nmissing];
-            for (int i = 0, j = 0; i < n; ++i) {
+            n -= nmissing;
+            for (int i = 0, j = 0; j < n; ++i) {
                 if (Double.isFinite(weights[i])) {
                     sr[j++] = weights[i];
                 }
             }
         }
-        int n = sr.length;
         int n2 = n >> 1;
-        Arrays.sort(sr);
+        psort.median(sr, n);
         if (n % 2 != 0) {
             return 6 * sr[n2];
         } else {
             return 3 * (sr[n2 - 1] + sr[n2]);
         }
-//        if (n % 2 != 0) {
-//            int[] idx=new int[]{n2};
-//            new PartialSort().psort(sr, idx);
-//            return 6*sr[n2];
-//        } else {
-//            int[] idx=new int[]{n2, n2-1};
-//            new PartialSort().psort(sr, idx);
-//            return 3 * (sr[n2 - 1] + sr[n2]);
-//        }
     }
 
     private void computeRobustWeights() {
@@ -188,20 +376,18 @@ public class RawStlKernel {
             // Step 1: SI=Y-T
             invop(y, trend, si);
             // Step 2: compute S
-            SeasonalFilter sfilter = SeasonalFilter.of(spec.getSeasonalSpec());
-            sfilter.filter(IDataGetter.of(si), weights == null ? null : k -> weights[k], spec.isMultiplicative(), IDataSelector.of(season));
+            sfilter.filter(IDataGetter.of(si), weights == null ? null : rw, spec.isMultiplicative(), IDataSelector.of(season));
             // Step 3: compute SA
             invop(y, season, sa);
             // Step 4: T=smooth(sa)
-            LoessFilter tfilter = new LoessFilter(spec.getTrendSpec());
-            tfilter.filter(IDataSelector.of(sa), weights == null ? null : k -> weights[k], IDataSelector.of(trend));
-            if (spec.isMultiplicative() && !DoubleSeq.of(trend).allMatch(q -> q > 0)) {
+            tfilter.filter(IDataSelector.of(sa), weights == null ? null : rw, IDataSelector.of(trend));
+            if (spec.isMultiplicative() && !isPositive(trend)) {
                 // workaround to avoid negative values in the trend
-                double[] lsa = new double[sa.length];
+                double[] lsa = ws.buffer;
                 for (int i = 0; i < lsa.length; ++i) {
                     lsa[i] = Math.log(sa[i]);
                 }
-                tfilter.filter(IDataSelector.of(lsa), weights == null ? null : k -> weights[k], IDataSelector.of(trend));
+                tfilter.filter(IDataSelector.of(lsa), weights == null ? null : rw, IDataSelector.of(trend));
                 for (int i = 0; i < trend.length; ++i) {
                     trend[i] = Math.exp(trend[i]);
                 }
@@ -210,6 +396,15 @@ public class RawStlKernel {
         }
     }
 
+    private static boolean isPositive(double[] x) {
+        for (int i = 0; i < x.length; ++i) {
+            if (!(x[i] > 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private double invop(double l, double r) {
         return spec.isMultiplicative() ? l / r : l - r;
     }
@@ -34,4 +34,9 @@ public class RawStlResults implements GenericExplorable{
     DoubleSeq sa;
     DoubleSeq fit;
     DoubleSeq weights;
+    /**
+     * Number of incremental updates since the last full processing (0 for a
+     * full processing)
+     */
+    int updates;
 }
@@ -28,26 +28,77 @@ import jdplus.toolkit.base.api.data.DoubleSeq;
 public class SeasonalFilter {
     private final SeasonalLoessFilter sfilter;
     private final LowPassLoessFilter lfilter;
+    private final StlWorkspace ws;
     
     public static SeasonalFilter of(SeasonalSpec spec){
         return new SeasonalFilter(spec.getSeasonalSpec(), spec.getLowPassSpec(), spec.getPeriod());
     }
     
+    /**
+     * Seasonal filter that borrows its buffers from a workspace
+     * @param spec
+     * @param ws The workspace. Its period should correspond to the period of the spec
+     * @return 
+     */
+    public static SeasonalFilter of(SeasonalSpec spec, StlWorkspace ws){
+        return new SeasonalFilter(spec.getSeasonalSpec(), spec.getLowPassSpec(), spec.getPeriod(), ws, false);
+    }
+    
+    /**
+     * Seasonal filter that borrows its buffers from a workspace
+     * @param spec
+     * @param ws The workspace. May be null
+     * @param parallel Parallel processing of the cycle-subseries (see SeasonalLoessFilter)
+     * @return 
+     */
+    public static SeasonalFilter of(SeasonalSpec spec, StlWorkspace ws, boolean parallel){
+        return new SeasonalFilter(spec.getSeasonalSpec(), spec.getLowPassSpec(), spec.getPeriod(), ws, parallel);
+    }
+    
     public SeasonalFilter(final SeasonalLoessFilter sfilter, final LowPassLoessFilter lfilter) {
         this.sfilter=sfilter;
         this.lfilter=lfilter;
+        this.ws=null;
     }
     
     public SeasonalFilter(LoessSpec sspec, LoessSpec lspec, int np){
         this.sfilter=new SeasonalLoessFilter(sspec, np);
         this.lfilter=new LowPassLoessFilter(lspec, np);
+        this.ws=null;
+    }
+    
+    public SeasonalFilter(LoessSpec sspec, LoessSpec lspec, int np, StlWorkspace ws){
+        this(sspec, lspec, np, ws, false);
+    }
+    
+    public SeasonalFilter(LoessSpec sspec, LoessSpec lspec, int np, StlWorkspace ws, boolean parallel){
+        this.sfilter=new SeasonalLoessFilter(sspec, np, ws, parallel);
+        this.lfilter=ws == null ? new LowPassLoessFilter(lspec, np) : new LowPassLoessFilter(lspec, np, ws);
+        this.ws=ws;
     }
     
+    /**
+     * See LoessFilter.setRangeOffset
+     *
+     * @param offset The number of observations that precede the data in the
+     * complete series. Should be a multiple of the period
+     */
+    void setRangeOffset(int offset) {
+        sfilter.setRangeOffset(offset);
+        lfilter.setRangeOffset(offset);
+    }
+
     public boolean filter(IDataGetter y, IntToDoubleFunction userWeights, boolean mul, IDataSelector ys) {
         int n=y.getLength();
         int np=sfilter.getPeriod();
-        double[] l = new double[n];
-        double[] c = new double[n + 2 * np];
+        double[] l, c;
+        if (ws != null && ws.isCompatible(n, np)){
+            l=ws.l;
+            c=ws.c;
+        }else{
+            l = new double[n];
+            c = new double[n + 2 * np];
+        }
         if (! sfilter.filter(y, userWeights, IDataSelector.of(c, -np)))
             return false;
         if (! lfilter.filter(IDataGetter.of(c), IDataSelector.of(l)))
@@ -56,4 +107,30 @@ public class SeasonalFilter {
             ys.set(i, mul ? c[i+np]/l[i]:c[i+np]-l[i]);
         return true;
     }
+    
+    /**
+     * Seasonal filter that only recomputes some cycle-subseries. The low-pass
+     * filter is always applied on all the data
+     * @param y
+     * @param userWeights
+     * @param mul
+     * @param c The smoothed (extended) cycle-subseries (length n+2*period),
+     * owned by the caller. The cycle-subseries that are not selected should
+     * contain the results of a previous call
+     * @param selection The cycle-subseries that are refiltered. Null for all
+     * @param ys
+     * @return 
+     */
+    public boolean filter(IDataGetter y, IntToDoubleFunction userWeights, boolean mul, double[] c, boolean[] selection, IDataSelector ys) {
+        int n=y.getLength();
+        int np=sfilter.getPeriod();
+        double[] l = ws != null && ws.isCompatible(n, np) ? ws.l : new double[n];
+        if (! sfilter.filter(y, userWeights, IDataSelector.of(c, -np), selection))
+            return false;
+        if (! lfilter.filter(IDataGetter.of(c), IDataSelector.of(l)))
+            return false;
+        for (int i=0; i<n; ++i)
+            ys.set(i, mul ? c[i+np]/l[i]:c[i+np]-l[i]);
+        return true;
+    }
 }
@@ -18,6 +18,7 @@ package jdplus.stl.base.core;
 
 import jdplus.stl.base.api.LoessSpec;
 import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
 
 /**
  *
@@ -25,12 +26,23 @@ import java.util.function.IntToDoubleFunction;
  */
 public class SeasonalLoessFilter {
 
+    /**
+     * Minimal length of the series for the parallel processing of the
+     * cycle-subseries
+     */
+    public static final int PARALLEL_THRESHOLD = 2048;
+
     private final LoessFilter filter;
     private final IPeriodicDataOrganizer organizer;
+    private final boolean parallel;
+    // filters used by the different workers in parallel processing (the first one is filter)
+    private LoessFilter[] workers;
+    private int rangeOffset;
 
     public SeasonalLoessFilter(LoessSpec spec, IPeriodicDataOrganizer organizer) {
         this.filter = new LoessFilter(spec);
         this.organizer = organizer;
+        this.parallel = false;
     }
 
     /**
@@ -41,6 +53,39 @@ public class SeasonalLoessFilter {
     public SeasonalLoessFilter(LoessSpec spec, int period) {
         this.filter = new LoessFilter(spec);
         this.organizer = IPeriodicDataOrganizer.of(period);
+        this.parallel = false;
+    }
+
+    /**
+     * Defines the seasonal filter, using the loess buffer of a workspace
+     * @param spec The specification of the filter
+     * @param period The period used by the filter
+     * @param ws The workspace
+     */
+    public SeasonalLoessFilter(LoessSpec spec, int period, StlWorkspace ws) {
+        this(spec, period, ws, false);
+    }
+
+    /**
+     * Defines the seasonal filter, using the loess buffer of a workspace.
+     * In parallel mode, the cycle-subseries of long series (see
+     * PARALLEL_THRESHOLD) are filtered concurrently. Each worker uses its own
+     * loess filter, so that the results are identical to the results of the
+     * sequential processing
+     *
+     * @param spec The specification of the filter
+     * @param period The period used by the filter
+     * @param ws The workspace. May be null
+     * @param parallel Parallel processing of the cycle-subseries
+     */
+    public SeasonalLoessFilter(LoessSpec spec, int period, StlWorkspace ws, boolean parallel) {
+        this.filter = ws == null ? new LoessFilter(spec) : new LoessFilter(spec, ws);
+        this.organizer = IPeriodicDataOrganizer.of(period);
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return parallel;
     }
     
     public int getPeriod(){
@@ -55,13 +100,47 @@ public class SeasonalLoessFilter {
     }
 
     public boolean filter(IDataGetter y, IntToDoubleFunction userWeights, IDataSelector ys) {
+        return filter(y, userWeights, ys, null);
+    }
+
+    /**
+     * Filters some cycle-subseries. The other ones are not modified
+     *
+     * @param y
+     * @param userWeights
+     * @param ys
+     * @param selection The selected cycle-subseries (by position in the
+     * period). Null for all the cycle-subseries
+     * @return
+     */
+    public boolean filter(IDataGetter y, IntToDoubleFunction userWeights, IDataSelector ys, boolean[] selection) {
         int np = organizer.getPeriod();
         if (np < 1) {
             return false;
         }
         IPeriodicDataGetters yp = organizer.getters(y);
         IPeriodicDataSelectors ysp = organizer.selectors(ys);
+        if (parallel && np > 1 && y.getLength() >= PARALLEL_THRESHOLD) {
+            int nworkers = Math.min(np, Runtime.getRuntime().availableProcessors());
+            if (nworkers > 1) {
+                LoessFilter[] filters = workers(nworkers);
+                // the cycle-subseries are distributed among the workers (round-robin)
+                IntStream.range(0, nworkers).parallel().forEach(w -> {
+                    LoessFilter wfilter = filters[w];
+                    for (int j = w; j < np; j += nworkers) {
+                        if (selection != null && !selection[j]) {
+                            continue;
+                        }
+                        wfilter.filter(yp.get(j), organizer.weights(userWeights, j), ysp.get(j));
+                    }
+                });
+                return true;
+            }
+        }
         for (int j = 0; j < np; ++j) {
+            if (selection != null && !selection[j]) {
+                continue;
+            }
             // last index fo period j (excluded)
             IDataGetter src = yp.get(j);
             IDataSelector tgt = ysp.get(j);
@@ -70,4 +149,33 @@ public class SeasonalLoessFilter {
         return true;
     }
 
+    /**
+     * See LoessFilter.setRangeOffset
+     *
+     * @param offset The number of observations that precede the data in the
+     * complete series. Should be a multiple of the period
+     */
+    void setRangeOffset(int offset) {
+        rangeOffset = offset / organizer.getPeriod();
+        filter.setRangeOffset(rangeOffset);
+        if (workers != null) {
+            for (LoessFilter worker : workers) {
+                worker.setRangeOffset(rangeOffset);
+            }
+        }
+    }
+
+    private LoessFilter[] workers(int nworkers) {
+        if (workers == null || workers.length < nworkers) {
+            LoessFilter[] nw = new LoessFilter[nworkers];
+            nw[0] = filter;
+            for (int i = 1; i < nworkers; ++i) {
+                nw[i] = workers != null && i < workers.length ? workers[i] : new LoessFilter(filter.getSpec());
+                nw[i].setRangeOffset(rangeOffset);
+            }
+            workers = nw;
+        }
+        return workers;
+    }
+
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import jdplus.stl.base.api.StlSpec;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.toolkit.base.api.math.matrices.Matrix;
+import jdplus.toolkit.base.core.math.matrices.FastMatrix;
+
+/**
+ * STL decomposition of a set of series of the same length (columns of a
+ * matrix).
+ * The columns are split in blocks, which are processed in parallel on a
+ * fork/join pool. The series of a block are decomposed by the same kernel, so
+ * that they share the buffers and the pre-computed loess weights of that
+ * kernel. The components are written directly in the columns of the output
+ * matrices or in a results store.
+ *
+ * @author Jean Palate
+ */
+public class StlBatchKernel {
+
+    public static final int DEF_BLOCK_SIZE = 32;
+
+    private final StlSpec spec;
+    private final ForkJoinPool pool;
+    private final int blockSize;
+
+    /**
+     * Batch kernel using the common pool
+     *
+     * @param spec
+     * @return
+     */
+    public static StlBatchKernel of(StlSpec spec) {
+        return new StlBatchKernel(spec, ForkJoinPool.commonPool(), DEF_BLOCK_SIZE);
+    }
+
+    /**
+     *
+     * @param spec The specification used for all the series
+     * @param pool The pool used for the processing. If null, the series are
+     * processed sequentially in the current thread
+     * @param blockSize The (maximum) number of series processed by one task
+     * @return
+     */
+    public static StlBatchKernel of(StlSpec spec, ForkJoinPool pool, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("STL");
+        }
+        return new StlBatchKernel(spec, pool, blockSize);
+    }
+
+    private StlBatchKernel(StlSpec spec, ForkJoinPool pool, int blockSize) {
+        this.spec = spec;
+        this.pool = pool;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     *
+     * @param data The series (in columns)
+     * @return
+     */
+    public StlBatchResults process(Matrix data) {
+        int n = data.getRowsCount(), m = data.getColumnsCount();
+        MatrixOutput output = new MatrixOutput(n, m);
+        run(data, output);
+        return StlBatchResults.builder()
+                .multiplicative(spec.isMultiplicative())
+                .sa(output.sa)
+                .trend(output.trend)
+                .seasonal(output.seasonal)
+                .irregular(output.irr)
+                .fit(output.fit)
+                .weights(output.weights)
+                .build();
+    }
+
+    /**
+     * Decomposes the series and writes the components in a results store,
+     * instead of keeping them in memory. The store should have been created
+     * for the same number of series and the same length, with the period of
+     * the specification
+     *
+     * @param data The series (in columns)
+     * @param store The results store. It is not closed by this method
+     */
+    public void process(Matrix data, StlResultsStore store) {
+        if (store.getSeriesCount() != data.getColumnsCount() || store.getLength() != data.getRowsCount()) {
+            throw new IllegalArgumentException("STL");
+        }
+        run(data, new Output() {
+            @Override
+            public void copy(int j, RawStlKernel kernel) {
+                store.put(j, kernel);
+            }
+
+            @Override
+            public void fail(int j) {
+                store.fail(j);
+            }
+        });
+    }
+
+    private void run(Matrix data, Output output) {
+        int m = data.getColumnsCount();
+        if (m > 0) {
+            Block all = new Block(data, output, 0, m);
+            if (pool == null || m <= blockSize) {
+                all.compute();
+            } else {
+                pool.invoke(all);
+            }
+        }
+    }
+
+    private static interface Output {
+
+        void copy(int j, RawStlKernel kernel);
+
+        void fail(int j);
+    }
+
+    private static class MatrixOutput implements Output {
+
+        final FastMatrix sa, trend, seasonal, irr, fit, weights;
+
+        MatrixOutput(int n, int m) {
+            sa = FastMatrix.make(n, m);
+            trend = FastMatrix.make(n, m);
+            seasonal = FastMatrix.make(n, m);
+            irr = FastMatrix.make(n, m);
+            fit = FastMatrix.make(n, m);
+            weights = FastMatrix.make(n, m);
+        }
+
+        @Override
+        public void copy(int j, RawStlKernel kernel) {
+            StlWorkspace ws = kernel.getWorkspace();
+            sa.column(j).copyFrom(ws.sa, 0);
+            trend.column(j).copyFrom(ws.trend, 0);
+            seasonal.column(j).copyFrom(ws.season, 0);
+            irr.column(j).copyFrom(ws.irr, 0);
+            fit.column(j).copyFrom(ws.fit, 0);
+            if (kernel.hasRobustWeights()) {
+                weights.column(j).copyFrom(ws.weights, 0);
+            } else {
+                weights.column(j).set(1);
+            }
+        }
+
+        @Override
+        public void fail(int j) {
+            sa.column(j).set(Double.NaN);
+            trend.column(j).set(Double.NaN);
+            seasonal.column(j).set(Double.NaN);
+            irr.column(j).set(Double.NaN);
+            fit.column(j).set(Double.NaN);
+            weights.column(j).set(Double.NaN);
+        }
+    }
+
+    private class Block extends RecursiveAction {
+
+        private final Matrix data;
+        private final Output output;
+        private final int j0, j1;
+
+        Block(Matrix data, Output output, int j0, int j1) {
+            this.data = data;
+            this.output = output;
+            this.j0 = j0;
+            this.j1 = j1;
+        }
+
+        @Override
+        protected void compute() {
+            if (pool != null && j1 - j0 > blockSize) {
+                int mid = (j0 + j1) >>> 1;
+                invokeAll(new Block(data, output, j0, mid), new Block(data, output, mid, j1));
+            } else {
+                RawStlKernel kernel = new RawStlKernel(spec);
+                for (int j = j0; j < j1; ++j) {
+                    DoubleSeq col = data.column(j);
+                    if (col.anyMatch(Double::isFinite) && kernel.decompose(col)) {
+                        output.copy(j, kernel);
+                    } else {
+                        output.fail(j);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+import jdplus.toolkit.base.api.math.matrices.Matrix;
+
+/**
+ * Results of the STL decomposition of a set of series of the same length.
+ * Each component is stored in a matrix; the column j corresponds to the j-th
+ * series.
+ * Columns of series that couldn't be decomposed contain missing values.
+ *
+ * @author Jean Palate
+ */
+@lombok.Value
+@lombok.Builder(builderClassName = "Builder")
+public class StlBatchResults {
+
+    boolean multiplicative;
+    Matrix sa;
+    Matrix trend;
+    Matrix seasonal;
+    Matrix irregular;
+    Matrix fit;
+    Matrix weights;
+
+    public int getSeriesCount() {
+        return trend.getColumnsCount();
+    }
+}
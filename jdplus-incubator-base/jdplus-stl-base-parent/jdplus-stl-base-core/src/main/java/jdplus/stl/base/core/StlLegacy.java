@@ -40,15 +40,20 @@ public class StlLegacy {
 
     protected final StlLegacySpec spec;
     protected double[] y;
-    protected boolean[] missing;
-    protected double[] season;
-    protected double[] trend;
-    protected double[] irr;
-    protected double[] weights;
-    protected double[] fit;
+    // Components (trend, season, irregular, fit, weights), n values each, stored consecutively
+    protected double[] rslt;
+    // Start positions of the components in rslt
+    protected int t0, s0, i0, f0, w0;
+    // Indicates that robust weights have been computed
+    protected boolean robust;
+    protected StlLegacyWorkspace ws;
 
     private static final int MAXSTEP = 100;
 
+    // buffers used for the median of the residuals
+    private final PartialSort psort = new PartialSort();
+    private final int[] odd = new int[1], even = new int[2];
+
     private int n() {
         return y.length;
     }
@@ -57,9 +62,54 @@ public class StlLegacy {
         this.spec = spec;
     }
 
+    /**
+     * Decomposes a series. The components are retrieved by means of the
+     * getters. The workspace of the routine is reused for successive series
+     * of the same length.
+     *
+     * @param data The series. Missing values are identified by NaN
+     * @return
+     */
     public boolean process(DoubleSeq data) {
+        int n = data.length();
+        if (ws == null || !ws.isCompatible(n, spec.getNp())) {
+            ws = StlLegacyWorkspace.of(n, spec.getNp());
+        }
+        return process(data.toArray(), ws, new double[5 * n], 0);
+    }
 
-        if (!initializeProcessing(data)) {
+    /**
+     * In-place decomposition: the components are written in a buffer owned
+     * by the caller and no other memory is allocated.
+     *
+     * The trend, the seasonal component, the irregular component, the fit and
+     * the robust weights (n values each, n being the length of the series)
+     * are written consecutively in out, starting at position start. The
+     * robust weights are set to 1 when there is no outer loop.
+     *
+     * @param y The series. Missing values are identified by NaN. The array is
+     * not modified and it is not copied: it must not be changed during the
+     * processing.
+     * @param ws The workspace. Must be compatible with the length of the series
+     * and with the periodicity of the specification
+     * @param out The output buffer
+     * @param start The position of the first component in the output buffer
+     * @return
+     */
+    public boolean process(double[] y, StlLegacyWorkspace ws, double[] out, int start) {
+        int n = y.length;
+        if (!ws.isCompatible(n, spec.getNp()) || start < 0 || out.length < start + 5 * n) {
+            throw new IllegalArgumentException("STL");
+        }
+        this.y = y;
+        this.ws = ws;
+        this.rslt = out;
+        t0 = start;
+        s0 = t0 + n;
+        i0 = s0 + n;
+        f0 = i0 + n;
+        w0 = f0 + n;
+        if (!initializeProcessing()) {
             return false;
         }
         int istep = 0;
@@ -68,96 +118,99 @@ public class StlLegacy {
             if (++istep > spec.getNo()) {
                 return finishProcessing();
             }
-            if (weights == null) {
-                weights = new double[n()];
-                fit = new double[n()];
-            }
-            for (int i = 0; i < n(); ++i) {
-                fit[i] = spec.isMultiplicative() ? trend[i] * season[i] : trend[i] + season[i];
+            boolean mul = spec.isMultiplicative();
+            for (int i = 0; i < n; ++i) {
+                rslt[f0 + i] = mul ? rslt[t0 + i] * rslt[s0 + i] : rslt[t0 + i] + rslt[s0 + i];
             }
-            stlrwt(fit, weights);
+            stlrwt();
+            robust = true;
         } while (true);
     }
 
     private boolean finishProcessing() {
+        boolean[] missing = ws.missing;
         for (int i = 0; i < n(); ++i) {
             if (spec.isMultiplicative()) {
-                fit[i] = trend[i] * season[i];
+                rslt[f0 + i] = rslt[t0 + i] * rslt[s0 + i];
                 if (missing[i]) {
-                    irr[i] = 1;
+                    rslt[i0 + i] = 1;
                 } else {
-                    irr[i] = y[i] / fit[i];
+                    rslt[i0 + i] = y[i] / rslt[f0 + i];
                 }
             } else {
-                fit[i] = trend[i] + season[i];
+                rslt[f0 + i] = rslt[t0 + i] + rslt[s0 + i];
                 if (missing[i]) {
-                    irr[i] = 0;
+                    rslt[i0 + i] = 0;
                 } else {
-                    irr[i] = y[i] - fit[i];
+                    rslt[i0 + i] = y[i] - rslt[f0 + i];
                 }
             }
         }
+        if (!robust) {
+            Arrays.fill(rslt, w0, w0 + n(), 1);
+        }
         return true;
     }
 
-    private boolean initializeProcessing(DoubleSeq data) {
-        int n = data.length();
-        y = new double[n];
-        data.copyTo(y, 0);
-        missing = new boolean[n];
-        for (int i = 0; i < n(); ++i) {
+    private boolean initializeProcessing() {
+        int n = n();
+        boolean[] missing = ws.missing;
+        for (int i = 0; i < n; ++i) {
             missing[i] = !Double.isFinite(y[i]);
         }
-        fit = new double[n];
-        season = new double[n];
-        trend = new double[n];
-        if (spec.isMultiplicative()) {
-            Arrays.setAll(trend, i -> 1);
-        }
-        irr = new double[n];
+        robust = false;
+        Arrays.fill(rslt, t0, t0 + n, spec.isMultiplicative() ? 1 : 0);
         return true;
     }
 
-    private static double mad(double[] r, boolean legacy) {
-        double[] sr = r.clone();
-//        Arrays.sort(sr);
-        int n = r.length;
+    private double mad(double[] r, int start, boolean legacy) {
+        int n = n();
+        double[] sr = ws.r;
+        System.arraycopy(r, start, sr, 0, n);
         int n2 = n >> 1;
         if (n % 2 != 0) {
-            int[] idx=new int[]{n2};
-            new PartialSort().psort(sr, idx);
+            odd[0] = n2;
+            psort.psort(sr, odd);
             return 6*sr[n2];
         } else {
-            int[] idx= legacy ? new int[]{n2, n2-1} : new int[]{n2-1, n2};
-            new PartialSort().psort(sr, idx);
+            // the legacy routine uses the positions in the wrong order
+            if (legacy) {
+                even[0] = n2;
+                even[1] = n2 - 1;
+            } else {
+                even[0] = n2 - 1;
+                even[1] = n2;
+            }
+            psort.psort(sr, even);
             return 3 * (sr[n2 - 1] + sr[n2]);
         }
     }
 
-    private void stlrwt(double[] fit, double[] w) {
+    private void stlrwt() {
 
         int n = n();
+        boolean[] missing = ws.missing;
         for (int i = 0; i < n; ++i) {
             if (missing[i]) {
-                w[i] = 0;
+                rslt[w0 + i] = 0;
             } else {
-                w[i] = Math.abs(spec.isMultiplicative() ? y[i] / fit[i] - 1 : y[i] - fit[i]);
+                rslt[w0 + i] = Math.abs(spec.isMultiplicative() ? y[i] / rslt[f0 + i] - 1 : y[i] - rslt[f0 + i]);
             }
         }
 
-        double mad = mad(w, spec.isLegacy());
+        double mad = mad(rslt, w0, spec.isLegacy());
 
         double c1 = spec.getWthreshold() * mad;
         double c9 = (1 - spec.getWthreshold()) * mad;
 
-        for (int i = 0; i < n; ++i) {
-            double r = w[i];
+        for (int i = w0; i < w0 + n; ++i) {
+            double r = rslt[i];
             if (r <= c1) {
-                w[i] = 1;
+                rslt[i] = 1;
             } else if (r <= c9) {
-                w[i] = spec.getWfn().applyAsDouble(r / mad);
+                rslt[i] = spec.getWfn().applyAsDouble(r / mad);
             } else {
-                w[i] = 0;
+                rslt[i] = 0;
             }
         }
 
@@ -201,8 +254,20 @@ public class StlLegacy {
      */
     static void stlfts(int np, double[] x, double[] t) {
         int n = x.length;
-        double[] w1 = new double[n];
-        double[] w2 = new double[n];
+        stlfts(np, n, x, t, new double[n], new double[n]);
+    }
+
+    /**
+     * Same as stlfts(np, x, t), with buffers provided by the caller
+     *
+     * @param np Periodicity of the series that we try to remove
+     * @param n Number of input data (in x)
+     * @param x Input
+     * @param t Output. Should contain n-2*np figures
+     * @param w1 Buffer (at least n-np+1 figures)
+     * @param w2 Buffer (at least n-2*np+2 figures)
+     */
+    static void stlfts(int np, int n, double[] x, double[] t, double[] w1, double[] w2) {
         stlma(np, n, x, w1);
         stlma(np, n - np + 1, w1, w2);
         stlma(3, n - 2 * np + 2, w2, t);
@@ -222,7 +287,7 @@ public class StlLegacy {
      */
     private double stlest(IntToDoubleFunction y, int n, int len, int degree, double xs, int left, int right, IntToDoubleFunction userWeights) {
         int nj = right - left + 1;
-        double[] w = new double[nj];
+        double[] w = ws.loessWeights(nj);
         double range = n - 1;
         double h = Math.max(xs - left, right - xs);
         if (len > n) {
@@ -232,6 +297,7 @@ public class StlLegacy {
         double h1 = 0.001 * h;
         double a = 0;
         for (int j = left, jw = 0; j <= right; ++j, ++jw) {
+            w[jw] = 0;
             boolean available = Double.isFinite(y.applyAsDouble(j));
             if (available) {
                 double r = Math.abs(j - xs);
@@ -285,10 +351,10 @@ public class StlLegacy {
         }
     }
 
-    private void stless(IntToDoubleFunction y, int n, int len, int degree, int njump, IntToDoubleFunction userWeights, double[] ys) {
+    private void stless(IntToDoubleFunction y, int n, int len, int degree, int njump, IntToDoubleFunction userWeights, double[] ys, int ystart) {
 
         if (n < 2) {
-            ys[0] = y.applyAsDouble(0);
+            ys[ystart] = y.applyAsDouble(0);
             return;
         }
         int newnj = Math.min(1 + njump, n - 1);
@@ -299,9 +365,9 @@ public class StlLegacy {
             for (int i = 0; i < n; i += newnj) {
                 double yscur = stlest(y, n, len, degree, i, nleft, nright, userWeights);
                 if (Double.isFinite(yscur)) {
-                    ys[i] = yscur;
+                    ys[ystart + i] = yscur;
                 } else {
-                    ys[i] = y.applyAsDouble(i);
+                    ys[ystart + i] = y.applyAsDouble(i);
                 }
             }
         } else if (newnj == 1) {
@@ -319,9 +385,9 @@ public class StlLegacy {
                 }
                 double yscur = stlest(y, n, len, degree, i, nleft, nright, userWeights);
                 if (Double.isFinite(yscur)) {
-                    ys[i] = yscur;
+                    ys[ystart + i] = yscur;
                 } else {
-                    ys[i] = y.applyAsDouble(i);
+                    ys[ystart + i] = y.applyAsDouble(i);
                 }
             }
         } else {
@@ -340,9 +406,9 @@ public class StlLegacy {
 
                 double yscur = stlest(y, n, len, degree, i, nleft, nright, userWeights);
                 if (Double.isFinite(yscur)) {
-                    ys[i] = yscur;
+                    ys[ystart + i] = yscur;
                 } else {
-                    ys[i] = y.applyAsDouble(i);
+                    ys[ystart + i] = y.applyAsDouble(i);
                 }
             }
         }
@@ -350,22 +416,22 @@ public class StlLegacy {
             // interpolation
             int i = 0;
             for (; i < n - newnj; i += newnj) {
-                double delta = (ys[i + newnj] - ys[i]) / newnj;
+                double delta = (ys[ystart + i + newnj] - ys[ystart + i]) / newnj;
                 for (int j = i + 1; j < i + newnj; ++j) {
-                    ys[j] = ys[i] + delta * (j - i);
+                    ys[ystart + j] = ys[ystart + i] + delta * (j - i);
                 }
             }
 
             if (i != n - 1) {
                 double yscur = stlest(y, n, len, degree, n - 1, nleft, nright, userWeights);
                 if (Double.isFinite(yscur)) {
-                    ys[n - 1] = yscur;
+                    ys[ystart + n - 1] = yscur;
                 } else {
-                    ys[n - 1] = y.applyAsDouble(n - 1);
+                    ys[ystart + n - 1] = y.applyAsDouble(n - 1);
                 }
-                double delta = (ys[n - 1] - ys[i]) / (n - i - 1);
+                double delta = (ys[ystart + n - 1] - ys[ystart + i]) / (n - i - 1);
                 for (int j = i + 1; j < n - 1; ++j) {
-                    ys[j] = ys[i] + delta * (j - i);
+                    ys[ystart + j] = ys[ystart + i] + delta * (j - i);
                 }
             }
         }
@@ -378,14 +444,16 @@ public class StlLegacy {
             return;
         }
         int n = n();
-        double[] s = new double[(n - 1) / np + 1];
+        double[] s = ws.s;
+        double[] out = rslt;
+        int wstart = w0;
         for (int j = 0; j < np; ++j) {
             // last index fo period j (excluded)
             int k = (n - 1 - j) / np + 1;
             final int start = j;
             IntToDoubleFunction yp = idx -> fn.applyAsDouble(idx * np + start);
-            IntToDoubleFunction wp = weights == null ? null : idx -> weights[idx * np + start];
-            stless(yp, k, spec.getNs(), spec.getSdeg(), spec.getNsjump(), wp, s);
+            IntToDoubleFunction wp = robust ? idx -> out[wstart + idx * np + start] : null;
+            stless(yp, k, spec.getNs(), spec.getSdeg(), spec.getNsjump(), wp, s, 0);
             // backcast
             double sb = stlest(yp, k, spec.getNs(), spec.getSdeg(), -1, 0, Math.min(spec.getNs() - 1, k - 1), wp);
             if (Double.isFinite(sb)) {
@@ -410,10 +478,13 @@ public class StlLegacy {
 
     protected void stlstp() {
         int n = n();
-        double[] si = new double[n];
-        double[] l = new double[n];
-        double[] w = new double[n];
-        double[] c = new double[n + 2 * spec.getNp()];
+        boolean[] missing = ws.missing;
+        double[] si = ws.si;
+        double[] l = ws.l;
+        double[] w = ws.w;
+        double[] c = ws.c;
+        double[] out = rslt;
+        int wstart = w0;
         // Step 1: SI=Y-T
 
         for (int j = 0; j < spec.getNi(); ++j) {
@@ -422,41 +493,45 @@ public class StlLegacy {
                 if (missing[i]) {
                     si[i] = Double.NaN;
                 } else if (spec.isMultiplicative()) {
-                    si[i] = y[i] / trend[i];
+                    si[i] = y[i] / rslt[t0 + i];
                 } else {
-                    si[i] = y[i] - trend[i];
+                    si[i] = y[i] - rslt[t0 + i];
                 }
             }
             // Step 2: C=smooth(SI) (extended series)
             stlss(k -> si[k], c);
             // Step 3: L = f(C), low-pass filter 
-            stlfts(spec.getNp(), c, w);
-            stless(k -> w[k], n, spec.getNl(), spec.getLdeg(), spec.getNljump(), null, l);
+            stlfts(spec.getNp(), c.length, c, w, ws.ma1, ws.ma2);
+            stless(k -> w[k], n, spec.getNl(), spec.getLdeg(), spec.getNljump(), null, l, 0);
             // Step 4: S = C - L
             for (int i = 0; i < n; ++i) {
                 if (spec.isMultiplicative()) {
-                    season[i] = c[spec.getNp() + i] / l[i];
+                    rslt[s0 + i] = c[spec.getNp() + i] / l[i];
                 } else {
-                    season[i] = c[spec.getNp() + i] - l[i];
+                    rslt[s0 + i] = c[spec.getNp() + i] - l[i];
                 }
             }
             // Step 5: seasonal adjustment
             for (int i = 0; i < n; ++i) {
                 if (!missing[i]) {
                     if (spec.isMultiplicative()) {
-                        w[i] = y[i] / season[i];
+                        w[i] = y[i] / rslt[s0 + i];
                     } else {
-                        w[i] = y[i] - season[i];
+                        w[i] = y[i] - rslt[s0 + i];
                     }
                 } else {
                     w[i] = Double.NaN;
                 }
             }
             // Step 6: T=smooth(sa)
-            stless(k -> w[k], n, spec.getNt(), spec.getTdeg(), spec.getNtjump(), weights == null ? null : k -> weights[k], trend);
+            stless(k -> w[k], n, spec.getNt(), spec.getTdeg(), spec.getNtjump(), robust ? k -> out[wstart + k] : null, rslt, t0);
         }
     }
 
+    private double[] component(int start) {
+        return rslt == null ? null : Arrays.copyOfRange(rslt, start, start + n());
+    }
+
     /**
      * @return the spec
      */
@@ -479,37 +554,37 @@ public class StlLegacy {
     }
 
     /**
-     * @return the season
+     * @return a copy of the season
      */
     public double[] getSeason() {
-        return season;
+        return component(s0);
     }
 
     /**
-     * @return the trend
+     * @return a copy of the trend
      */
     public double[] getTrend() {
-        return trend;
+        return component(t0);
     }
 
     /**
-     * @return the irr
+     * @return a copy of the irr
      */
     public double[] getIrr() {
-        return irr;
+        return component(i0);
     }
 
     /**
-     * @return the weights
+     * @return a copy of the weights (null if there is no outer loop)
      */
     public double[] getWeights() {
-        return weights;
+        return robust ? component(w0) : null;
     }
 
     /**
-     * @return the fit
+     * @return a copy of the fit
      */
     public double[] getFit() {
-        return fit;
+        return component(f0);
     }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+/**
+ * Working buffers of the legacy STL routine (see StlLegacy). A workspace is
+ * defined for a given length of the series and a given periodicity and it
+ * can be reused for any series of the same length, which avoids any
+ * allocation during the processing.
+ *
+ * The workspace is not thread-safe: it should be used by one routine at a
+ * time.
+ *
+ * @author Jean Palate
+ */
+public final class StlLegacyWorkspace {
+
+    private final int n, period;
+
+    // Missing values of the series
+    final boolean[] missing;
+    // Buffers of the main loop (length n): SI, low-pass, work buffer
+    final double[] si, l, w;
+    // Extended cycle-subseries (n+2*period) and buffers of the low-pass filter
+    final double[] c, ma1, ma2;
+    // Smoothed cycle-subseries
+    final double[] s;
+    // Residuals, for the computation of their median
+    final double[] r;
+    // Weights of the loess filters. Resized on demand
+    private double[] lw;
+
+    /**
+     * Creates a new workspace
+     *
+     * @param n The length of the series
+     * @param period The periodicity
+     * @return
+     */
+    public static StlLegacyWorkspace of(int n, int period) {
+        if (n <= 0 || period <= 0) {
+            throw new IllegalArgumentException("STL");
+        }
+        return new StlLegacyWorkspace(n, period);
+    }
+
+    private StlLegacyWorkspace(int n, int period) {
+        this.n = n;
+        this.period = period;
+        missing = new boolean[n];
+        si = new double[n];
+        l = new double[n];
+        w = new double[n];
+        c = new double[n + 2 * period];
+        ma1 = new double[n + 2 * period];
+        ma2 = new double[n + 2 * period];
+        s = new double[(n - 1) / period + 1];
+        r = new double[n];
+    }
+
+    /**
+     * Checks that the workspace can be used for a given problem
+     *
+     * @param n The length of the series
+     * @param period The periodicity
+     * @return
+     */
+    public boolean isCompatible(int n, int period) {
+        return this.n == n && this.period == period;
+    }
+
+    /**
+     * @return the length of the series
+     */
+    public int getLength() {
+        return n;
+    }
+
+    /**
+     * @return the periodicity
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    /**
+     * Buffer for the weights of a loess estimation
+     *
+     * @param len The number of weights
+     * @return A buffer of length greater or equal to len
+     */
+    double[] loessWeights(int len) {
+        if (lw == null || lw.length < len) {
+            lw = new double[len];
+        }
+        return lw;
+    }
+}
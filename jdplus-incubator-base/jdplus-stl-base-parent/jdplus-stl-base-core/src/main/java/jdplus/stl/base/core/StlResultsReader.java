@@ -0,0 +1,120 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+
+/**
+ * Read-only access to a results store (see StlResultsStore). The column files
+ * are memory-mapped and the series are provided as views, without copy.
+ * The views can't be used anymore when the reader is closed.
+ *
+ * @author Jean Palate
+ */
+public final class StlResultsReader implements Closeable {
+
+    private final Map<String, MappedColumn> columns;
+    private final int nseries, length;
+
+    /**
+     * Opens the column files of a folder
+     *
+     * @param folder
+     * @return
+     * @throws IOException
+     */
+    public static StlResultsReader open(Path folder) throws IOException {
+        Map<String, MappedColumn> columns = new TreeMap<>();
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(StlResultsStore.SUFFIX)) {
+                    columns.put(name.substring(0, name.length() - StlResultsStore.SUFFIX.length()), MappedColumn.open(file));
+                }
+            }
+        }
+        if (columns.isEmpty()) {
+            throw new IOException("No column file in " + folder);
+        }
+        MappedColumn first = columns.values().iterator().next();
+        for (MappedColumn column : columns.values()) {
+            if (column.getSeriesCount() != first.getSeriesCount() || column.getLength() != first.getLength()) {
+                throw new IOException("Inconsistent column files in " + folder);
+            }
+        }
+        return new StlResultsReader(columns, first.getSeriesCount(), first.getLength());
+    }
+
+    private StlResultsReader(Map<String, MappedColumn> columns, int nseries, int length) {
+        this.columns = columns;
+        this.nseries = nseries;
+        this.length = length;
+    }
+
+    public int getSeriesCount() {
+        return nseries;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return The names of the components (see StlResultsStore)
+     */
+    public Set<String> getComponents() {
+        return columns.keySet();
+    }
+
+    /**
+     * A component of a given series
+     *
+     * @param component The name of the component
+     * @param series The position of the series
+     * @return A view on the mapped file
+     */
+    public DoubleSeq get(String component, int series) {
+        MappedColumn column = columns.get(component);
+        if (column == null) {
+            throw new IllegalArgumentException(component);
+        }
+        return column.get(series);
+    }
+
+    public DoubleSeq getSeasonal(int period, int series) {
+        return get(StlResultsStore.seasonal(period), series);
+    }
+
+    /**
+     * Closes the column files (see MappedColumn). The views on the series
+     * can't be used anymore
+     */
+    @Override
+    public void close() {
+        for (MappedColumn column : columns.values()) {
+            column.close();
+        }
+    }
+}
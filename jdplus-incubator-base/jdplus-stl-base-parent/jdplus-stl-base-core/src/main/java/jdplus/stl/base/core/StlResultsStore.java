@@ -0,0 +1,241 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+
+/**
+ * Results sink for large batches of STL/MSTL decompositions. The components
+ * are written in memory-mapped column files (one file by component, see
+ * MappedColumn for the layout), so that they don't stay on the heap.
+ *
+ * The store contains the components sa, trend, irregular, fit, weights and
+ * one seasonal component for each period. It can be read by means of
+ * StlResultsReader.
+ *
+ * Different series can be written concurrently. The content is flushed to
+ * the disk when the store is closed; the mappings are released by the
+ * garbage collector (see MappedColumn).
+ *
+ * @author Jean Palate
+ */
+public final class StlResultsStore implements Closeable {
+
+    public static final String SA = "sa", TREND = "trend", IRREGULAR = "irregular", FIT = "fit", WEIGHTS = "weights";
+    static final String SUFFIX = ".col";
+
+    /**
+     * Name of the seasonal component of a given period
+     *
+     * @param period
+     * @return
+     */
+    public static String seasonal(int period) {
+        return "seasonal_" + period;
+    }
+
+    private final int nseries, length;
+    private final int[] periods;
+    private final MappedColumn sa, trend, irr, fit, weights;
+    private final MappedColumn[] seasonal;
+
+    /**
+     * Creates a new store. Existing column files are overwritten
+     *
+     * @param folder The folder of the column files. Created if need be
+     * @param nseries The number of series
+     * @param length The length of the series
+     * @param periods The periods of the seasonal components
+     * @return
+     * @throws IOException
+     */
+    public static StlResultsStore create(Path folder, int nseries, int length, int... periods) throws IOException {
+        if (periods.length == 0) {
+            throw new IllegalArgumentException("STL");
+        }
+        Files.createDirectories(folder);
+        return new StlResultsStore(folder, nseries, length, periods.clone());
+    }
+
+    private StlResultsStore(Path folder, int nseries, int length, int[] periods) throws IOException {
+        this.nseries = nseries;
+        this.length = length;
+        this.periods = periods;
+        String[] names = new String[5 + periods.length];
+        names[0] = SA;
+        names[1] = TREND;
+        names[2] = IRREGULAR;
+        names[3] = FIT;
+        names[4] = WEIGHTS;
+        for (int i = 0; i < periods.length; ++i) {
+            names[5 + i] = seasonal(periods[i]);
+        }
+        MappedColumn[] all = new MappedColumn[names.length];
+        try {
+            for (int i = 0; i < names.length; ++i) {
+                all[i] = MappedColumn.create(folder.resolve(names[i] + SUFFIX), nseries, length);
+            }
+        } catch (IOException | RuntimeException ex) {
+            // the columns already created are closed
+            for (MappedColumn column : all) {
+                if (column != null) {
+                    column.close();
+                }
+            }
+            throw ex;
+        }
+        sa = all[0];
+        trend = all[1];
+        irr = all[2];
+        fit = all[3];
+        weights = all[4];
+        seasonal = Arrays.copyOfRange(all, 5, all.length);
+    }
+
+    public int getSeriesCount() {
+        return nseries;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Writes a STL decomposition. The store should contain a single seasonal
+     * component
+     *
+     * @param series The position of the series
+     * @param rslt The decomposition. Null for a failed decomposition (NaN)
+     */
+    public void put(int series, RawStlResults rslt) {
+        if (rslt == null) {
+            fail(series);
+            return;
+        }
+        if (seasonal.length != 1) {
+            throw new IllegalArgumentException("STL");
+        }
+        sa.put(series, rslt.getSa());
+        trend.put(series, rslt.getTrend());
+        irr.put(series, rslt.getIrregular());
+        fit.put(series, rslt.getFit());
+        weights.put(series, rslt.getWeights());
+        seasonal[0].put(series, rslt.getSeasonal());
+    }
+
+    /**
+     * Writes a MSTL decomposition. The periods of the decomposition should
+     * correspond to the periods of the store
+     *
+     * @param series The position of the series
+     * @param rslt The decomposition. Null for a failed decomposition (NaN)
+     */
+    public void put(int series, MStlResults rslt) {
+        if (rslt == null) {
+            fail(series);
+            return;
+        }
+        sa.put(series, rslt.getSa());
+        trend.put(series, rslt.getTrend());
+        irr.put(series, rslt.getIrregular());
+        fit.put(series, rslt.getFit());
+        DoubleSeq w = rslt.getWeights();
+        if (w == null) {
+            weights.fill(series, 1);
+        } else {
+            weights.put(series, w);
+        }
+        for (int i = 0; i < periods.length; ++i) {
+            DoubleSeq s = rslt.getSeasons().get(periods[i]);
+            if (s == null) {
+                throw new IllegalArgumentException("STL");
+            }
+            seasonal[i].put(series, s);
+        }
+    }
+
+    /**
+     * Writes the last decomposition of a STL kernel, directly from its
+     * workspace. The store should contain a single seasonal component, with
+     * the period of the kernel
+     *
+     * @param series
+     * @param kernel
+     */
+    void put(int series, RawStlKernel kernel) {
+        if (seasonal.length != 1 || kernel.getSpec().getSeasonalSpec().getPeriod() != periods[0]) {
+            throw new IllegalArgumentException("STL");
+        }
+        StlWorkspace ws = kernel.getWorkspace();
+        if (ws == null || !ws.isCompatible(length, periods[0])) {
+            throw new IllegalArgumentException("STL");
+        }
+        sa.put(series, ws.sa);
+        trend.put(series, ws.trend);
+        irr.put(series, ws.irr);
+        fit.put(series, ws.fit);
+        if (kernel.hasRobustWeights()) {
+            weights.put(series, ws.weights);
+        } else {
+            weights.fill(series, 1);
+        }
+        seasonal[0].put(series, ws.season);
+    }
+
+    /**
+     * Marks a failed decomposition (all the components are set to NaN)
+     *
+     * @param series
+     */
+    public void fail(int series) {
+        sa.fill(series, Double.NaN);
+        trend.fill(series, Double.NaN);
+        irr.fill(series, Double.NaN);
+        fit.fill(series, Double.NaN);
+        weights.fill(series, Double.NaN);
+        for (MappedColumn s : seasonal) {
+            s.fill(series, Double.NaN);
+        }
+    }
+
+    /**
+     * Flushes the column files to the disk. The store can't be used anymore
+     */
+    @Override
+    public void close() {
+        for (MappedColumn column : columns()) {
+            column.force();
+            column.close();
+        }
+    }
+
+    private MappedColumn[] columns() {
+        MappedColumn[] all = new MappedColumn[5 + seasonal.length];
+        all[0] = sa;
+        all[1] = trend;
+        all[2] = irr;
+        all[3] = fit;
+        all[4] = weights;
+        System.arraycopy(seasonal, 0, all, 5, seasonal.length);
+        return all;
+    }
+}
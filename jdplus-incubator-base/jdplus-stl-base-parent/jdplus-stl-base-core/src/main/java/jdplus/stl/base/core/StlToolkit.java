@@ -25,6 +25,8 @@ import jdplus.toolkit.base.api.timeseries.TsData;
 import jdplus.toolkit.base.api.timeseries.TsPeriod;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import jdplus.toolkit.base.api.math.matrices.Matrix;
 
 /**
  *
@@ -57,6 +59,30 @@ public class StlToolkit {
                 .build();
     }
 
+    /**
+     * STL decomposition of a set of series of the same length, using the
+     * common fork/join pool
+     *
+     * @param data The series (in columns)
+     * @param spec The specification used for all the series
+     * @return The components of the decomposition, in columns
+     */
+    public StlBatchResults processBatch(Matrix data, StlSpec spec) {
+        return StlBatchKernel.of(spec).process(data);
+    }
+
+    /**
+     * STL decomposition of a set of series of the same length
+     *
+     * @param data The series (in columns)
+     * @param spec The specification used for all the series
+     * @param pool The pool used for the processing
+     * @return The components of the decomposition, in columns
+     */
+    public StlBatchResults processBatch(Matrix data, StlSpec spec, ForkJoinPool pool) {
+        return StlBatchKernel.of(spec, pool, StlBatchKernel.DEF_BLOCK_SIZE).process(data);
+    }
+
     public StlResults process(TsData data, MStlSpec spec) {
         // We should add pre-processing
         MStlKernel stl = MStlKernel.of(spec);
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+/**
+ * Working buffers used by the STL routines. A workspace is defined for a
+ * given length of the series and a given periodicity. It can be reused for
+ * any series of the same length, which avoids any allocation in the inner and
+ * outer loops of the kernel.
+ *
+ * The workspace is not thread-safe: it should be used by one kernel (or one
+ * filter) at a time.
+ *
+ * @author Jean Palate
+ */
+public final class StlWorkspace {
+
+    private final int n, period;
+
+    // Buffers of the kernel (length n)
+    final double[] y, season, trend, irr, weights, fit, si, sa, buffer;
+    // Buffers of the seasonal filter: extended cycle-subseries (n+2*period) and low-pass (n)
+    final double[] c, l;
+    // Buffer of the low-pass filter (moving averages)
+    final double[] ma;
+    // Weights and data (window) of the loess filters. Resized on demand
+    private double[] lw, ld;
+
+    /**
+     * Creates a new workspace
+     *
+     * @param n The length of the series
+     * @param period The periodicity used in the seasonal filter
+     * @return
+     */
+    public static StlWorkspace of(int n, int period) {
+        if (n <= 0 || period <= 0) {
+            throw new IllegalArgumentException("STL");
+        }
+        return new StlWorkspace(n, period);
+    }
+
+    private StlWorkspace(int n, int period) {
+        this.n = n;
+        this.period = period;
+        y = new double[n];
+        season = new double[n];
+        trend = new double[n];
+        irr = new double[n];
+        weights = new double[n];
+        fit = new double[n];
+        si = new double[n];
+        sa = new double[n];
+        buffer = new double[n];
+        c = new double[n + 2 * period];
+        l = new double[n];
+        ma = new double[n];
+    }
+
+    /**
+     * Checks that the workspace can be used for a given problem
+     *
+     * @param n The length of the series
+     * @param period The periodicity
+     * @return
+     */
+    public boolean isCompatible(int n, int period) {
+        return this.n == n && this.period == period;
+    }
+
+    /**
+     * @return the length of the series
+     */
+    public int getLength() {
+        return n;
+    }
+
+    /**
+     * @return the periodicity
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    /**
+     * Buffer for the weights of a loess filter. The buffer is reallocated when
+     * a larger window is requested: it is shared by the loess filters created
+     * while it is large enough, and the filters created before a reallocation
+     * keep the previous array
+     *
+     * @param window The length of the window of the loess filter
+     * @return A buffer of length greater or equal to window
+     */
+    double[] loessWeights(int window) {
+        if (lw == null || lw.length < window) {
+            lw = new double[window];
+        }
+        return lw;
+    }
+
+    /**
+     * Buffer for the data of the current window of a loess filter (shared and
+     * reallocated like the weights buffer)
+     *
+     * @param window The length of the window of the loess filter
+     * @return A buffer of length greater or equal to window
+     */
+    double[] loessData(int window) {
+        if (ld == null || ld.length < window) {
+            ld = new double[window];
+        }
+        return ld;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jdplus.stl.base.api.IStlSpec;
+import jdplus.stl.base.api.StlSpec;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.toolkit.base.api.data.DoublesMath;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class IStlPipelineTest {
+
+    public IStlPipelineTest() {
+    }
+
+    private static DoubleSeq daily(int n, long seed) {
+        Random rnd = new Random(seed);
+        double[] y = new double[n];
+        for (int i = 0; i < n; ++i) {
+            y[i] = 100 + .01 * i + 5 * Math.sin(2 * Math.PI * i / 7) + 10 * Math.cos(2 * Math.PI * i / 30) + rnd.nextGaussian();
+        }
+        return DoubleSeq.of(y);
+    }
+
+    @Test
+    public void testPipeline() {
+        IStlSpec spec = IStlSpec.createDefault(true, 7, 30);
+        DoubleSeq y = daily(900, 0);
+        IStlPipeline pipeline = IStlPipeline.of(spec);
+        for (int k = 0; k < 2; ++k) {
+            MStlResults rslt = pipeline.process(y);
+            // reference: one kernel by period, in sequence
+            DoubleSeq cur = y, seasonal = null;
+            RawStlResults last = null;
+            for (IStlSpec.PeriodSpec pspec : spec.getPeriodSpecs()) {
+                StlSpec sspec = StlSpec.builder()
+                        .seasonalSpec(pspec.getSeasonalSpec())
+                        .trendSpec(pspec.getTrendSpec())
+                        .innerLoopsCount(spec.getInnerLoopsCount())
+                        .outerLoopsCount(spec.getOuterLoopsCount())
+                        .robustWeightFunction(spec.getRobustWeightFunction())
+                        .robustWeightThreshold(spec.getRobustWeightThreshold())
+                        .build();
+                last = new RawStlKernel(sspec).process(cur);
+                int period = pspec.getSeasonalSpec().getPeriod();
+                assertArrayEquals(last.getSeasonal().toArray(), rslt.getSeasons().get(period).toArray(), 0);
+                assertTrue(rslt.getProcessingTimes().get(period) > 0);
+                seasonal = DoublesMath.add(seasonal, last.getSeasonal());
+                cur = last.getSa();
+            }
+            assertArrayEquals(last.getSa().toArray(), rslt.getSa().toArray(), 0);
+            assertArrayEquals(last.getTrend().toArray(), rslt.getTrend().toArray(), 0);
+            assertArrayEquals(last.getIrregular().toArray(), rslt.getIrregular().toArray(), 0);
+            assertArrayEquals(last.getWeights().toArray(), rslt.getWeights().toArray(), 0);
+            assertArrayEquals(seasonal.toArray(), rslt.seasonal().toArray(), 0);
+        }
+    }
+
+    @Test
+    public void testConcurrent() {
+        IStlSpec spec = IStlSpec.createDefault(false, 7, 30);
+        List<DoubleSeq> all = new ArrayList<>();
+        for (int i = 0; i < 12; ++i) {
+            all.add(daily(600 + 50 * (i % 3), i));
+        }
+        List<MStlResults> rslts = IStlPipeline.process(all, spec, 3);
+        assertEquals(all.size(), rslts.size());
+        for (int i = 0; i < all.size(); ++i) {
+            MStlResults rslt = IStlKernel.process(all.get(i), spec);
+            assertArrayEquals(rslt.getSa().toArray(), rslts.get(i).getSa().toArray(), 0);
+            assertArrayEquals(rslt.getFit().toArray(), rslts.get(i).getFit().toArray(), 0);
+        }
+    }
+}
@@ -16,12 +16,14 @@
  */
 package jdplus.stl.base.core;
 
+import java.util.Random;
 import jdplus.stl.base.api.LoessSpec;
 import tck.demetra.data.Data;
 import jdplus.toolkit.base.api.data.Doubles;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import jdplus.toolkit.base.api.data.DoubleSeq;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  *
@@ -57,4 +59,56 @@ public class LoessFilterTest {
 //        System.out.println(DoubleSeq.of(d));
 //        System.out.println(DoubleSeq.of(sd));
     }
+
+    @Test
+    public void testWeightsTable() {
+        double[] d = Data.EXPORTS;
+        int nf = 5;
+        for (int win : new int[]{7, 25, 51}) {
+            for (int deg = 0; deg <= 1; ++deg) {
+                for (int jump : new int[]{0, 1, 4}) {
+                    LoessFilter filter = new LoessFilter(LoessSpec.of(win, deg, jump, null));
+                    double[] sd = new double[d.length + 2 * nf];
+                    // pre-computed weights
+                    filter.filter(IDataGetter.of(d), null, IDataSelector.of(sd, -nf));
+                    // unit user weights: normal computation
+                    double[] sd2 = new double[d.length + 2 * nf];
+                    filter.filter(IDataGetter.of(d), i -> 1, IDataSelector.of(sd2, -nf));
+                    assertArrayEquals(sd, sd2, 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testHermite() {
+        // long smooth series (trend of daily data)
+        int n = 3000;
+        double[] d = new double[n];
+        Random rnd = new Random(0);
+        for (int i = 0; i < n; ++i) {
+            d[i] = 10 * Math.sin(2 * Math.PI * i / 1500) + 0.01 * i + rnd.nextGaussian();
+        }
+        for (int deg = 0; deg <= 1; ++deg) {
+            double[] ref = new double[n];
+            new LoessFilter(LoessSpec.of(731, deg, 0, null)).filter(IDataGetter.of(d), null, IDataSelector.of(ref));
+            int jump = 50;
+            double[] linear = new double[n], hermite = new double[n];
+            new LoessFilter(LoessSpec.of(731, deg, jump, null, LoessSpec.Interpolation.LINEAR))
+                    .filter(IDataGetter.of(d), null, IDataSelector.of(linear));
+            new LoessFilter(LoessSpec.of(731, deg, jump, null, LoessSpec.Interpolation.HERMITE))
+                    .filter(IDataGetter.of(d), null, IDataSelector.of(hermite));
+            double elinear = 0, ehermite = 0;
+            for (int i = 0; i < n; ++i) {
+                elinear += Math.abs(linear[i] - ref[i]);
+                ehermite += Math.abs(hermite[i] - ref[i]);
+            }
+            // same estimates at the estimation points
+            for (int i = 0; i < n; i += jump + 1) {
+                assertEquals(linear[i], hermite[i]);
+            }
+            assertEquals(linear[n - 1], hermite[n - 1]);
+            assertTrue(ehermite < .25 * elinear);
+        }
+    }
 }
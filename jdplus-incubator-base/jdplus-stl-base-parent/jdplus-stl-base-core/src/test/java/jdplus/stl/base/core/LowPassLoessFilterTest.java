@@ -21,6 +21,8 @@ import tck.demetra.data.Data;
 import jdplus.toolkit.base.api.data.Doubles;
 import org.junit.jupiter.api.Test;
 import jdplus.toolkit.base.api.data.DoubleSeq;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  *
@@ -48,4 +50,24 @@ public class LowPassLoessFilterTest {
 //        System.out.println(DoubleSeq.of(l));
     }
 
+    @Test
+    public void testMovingAverages() {
+        Random rnd = new Random(0);
+        for (int np : new int[]{2, 7, 12, 52, 365}) {
+            int n = 10 * np + 5;
+            double[] x = new double[n];
+            for (int i = 0; i < n; ++i) {
+                x[i] = rnd.nextGaussian();
+            }
+            LowPassLoessFilter lfilter = new LowPassLoessFilter(LoessSpec.of(2 * np + 1, 1, false), np);
+            double[] w1 = new double[n - np + 1], w2 = new double[n - 2 * np + 2], w3 = new double[n - 2 * np];
+            lfilter.ma(np, IDataGetter.of(x), IDataSelector.of(w1));
+            lfilter.ma(np, IDataGetter.of(w1), IDataSelector.of(w2));
+            lfilter.ma(3, IDataGetter.of(w2), IDataSelector.of(w3));
+            double[] w = new double[n - 2 * np];
+            lfilter.movingAverages(IDataGetter.of(x), w);
+            assertArrayEquals(w3, w, 0);
+        }
+    }
+
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+import java.util.Random;
+import jdplus.stl.base.api.MStlSpec;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import org.junit.jupiter.api.Test;
+import tck.demetra.data.Data;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class MStlKernelTest {
+
+    public MStlKernelTest() {
+    }
+
+    private static DoubleSeq daily(int n) {
+        Random rnd = new Random(0);
+        double[] y = new double[n];
+        for (int i = 0; i < n; ++i) {
+            y[i] = 100 + .01 * i + 5 * Math.sin(2 * Math.PI * i / 7) + 10 * Math.cos(2 * Math.PI * i / 30) + rnd.nextGaussian();
+        }
+        return DoubleSeq.of(y);
+    }
+
+    @Test
+    public void testInnerConvergence() {
+        DoubleSeq y = daily(730);
+        MStlSpec spec = MStlSpec.createDefault(new int[]{7, 30}, false).toBuilder()
+                .innerLoopsCount(20)
+                .build();
+        MStlResults full = MStlKernel.of(spec).process(y);
+        assertEquals(20, full.getInnerIterations());
+        assertEquals(0, full.getOuterIterations());
+
+        MStlResults rslt = MStlKernel.of(spec.toBuilder().convergenceTolerance(1e-4).build()).process(y);
+        assertTrue(rslt.getInnerIterations() < 20);
+        assertArrayEquals(full.getSa().toArray(), rslt.getSa().toArray(), 1e-3);
+    }
+
+    @Test
+    public void testOuterConvergence() {
+        DoubleSeq y = DoubleSeq.of(Data.EXPORTS);
+        MStlSpec spec = MStlSpec.createDefault(12, true);
+        MStlResults full = MStlKernel.of(spec).process(y);
+        assertEquals(spec.getOuterLoopsCount(), full.getOuterIterations());
+        assertEquals(spec.getInnerLoopsCount() * (spec.getOuterLoopsCount() + 1), full.getInnerIterations());
+
+        MStlResults rslt = MStlKernel.of(spec.toBuilder().convergenceTolerance(1e-3).build()).process(y);
+        assertTrue(rslt.getOuterIterations() < spec.getOuterLoopsCount());
+        double[] sa0 = full.getSa().toArray(), sa1 = rslt.getSa().toArray();
+        for (int i = 0; i < sa0.length; ++i) {
+            assertEquals(sa0[i], sa1[i], 1e-3 * Math.abs(sa0[i]));
+        }
+    }
+
+    @Test
+    public void testSeasonalReuse() {
+        DoubleSeq y = DoubleSeq.of(Data.EXPORTS);
+        MStlSpec spec = MStlSpec.createDefault(12, true);
+        MStlResults full = MStlKernel.of(spec).process(y);
+        assertEquals(0, full.getSkippedSubseries());
+
+        MStlResults rslt = MStlKernel.of(spec.toBuilder().seasonalReuseTolerance(1e-3).build()).process(y);
+        assertTrue(rslt.getSkippedSubseries() > 0);
+        double[] sa0 = full.getSa().toArray(), sa1 = rslt.getSa().toArray();
+        for (int i = 0; i < sa0.length; ++i) {
+            assertEquals(sa0[i], sa1[i], 1e-3 * Math.abs(sa0[i]));
+        }
+    }
+}
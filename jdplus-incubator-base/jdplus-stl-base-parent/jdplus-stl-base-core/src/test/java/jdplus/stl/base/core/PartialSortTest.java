@@ -72,4 +72,25 @@ public class PartialSortTest {
         }
         System.out.println(s);
     }
+
+    @Test
+    public void testMedian() {
+        Random rnd = new Random(0);
+        PartialSort psort = new PartialSort();
+        double[] buffer = new double[1000];
+        for (int k = 0; k < 500; ++k) {
+            int n = 1 + rnd.nextInt(buffer.length);
+            for (int i = 0; i < n; ++i) {
+                buffer[i] = k % 2 == 0 ? rnd.nextDouble() : rnd.nextInt(5);
+            }
+            double[] w = Arrays.copyOf(buffer, n);
+            Arrays.sort(w);
+            psort.median(buffer, n);
+            int n2 = n / 2;
+            assertEquals(w[n2], buffer[n2], 0);
+            if (n % 2 == 0) {
+                assertEquals(w[n2 - 1], buffer[n2 - 1], 0);
+            }
+        }
+    }
 }
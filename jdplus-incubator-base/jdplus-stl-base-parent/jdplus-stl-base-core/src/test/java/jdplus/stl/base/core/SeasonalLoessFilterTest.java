@@ -21,6 +21,7 @@ import tck.demetra.data.Data;
 import jdplus.toolkit.base.api.data.Doubles;
 import jdplus.toolkit.base.api.data.DoubleSeq;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  *
@@ -42,5 +43,30 @@ public class SeasonalLoessFilterTest {
 //        System.out.println(DataBlock.of(d));
 //        System.out.println(DataBlock.of(sd));
     }
-    
+
+    @Test
+    public void testParallel() {
+        int n = 3 * SeasonalLoessFilter.PARALLEL_THRESHOLD;
+        double[] d = new double[n];
+        for (int i = 0; i < n; ++i) {
+            d[i] = Data.EXPORTS[i % Data.EXPORTS.length] + i % 7;
+        }
+        double[] w = new double[n];
+        for (int i = 0; i < n; ++i) {
+            w[i] = i % 11 == 0 ? 0.5 : 1;
+        }
+        for (int period : new int[]{7, 52, 365}) {
+            LoessSpec spec = LoessSpec.of(7, 0, false);
+            SeasonalLoessFilter sfilter = new SeasonalLoessFilter(spec, period);
+            SeasonalLoessFilter pfilter = new SeasonalLoessFilter(spec, period, null, true);
+            double[] sd = new double[n + 2 * period], pd = new double[n + 2 * period];
+            sfilter.filter(IDataGetter.of(d), k -> w[k], IDataSelector.of(sd, -period));
+            pfilter.filter(IDataGetter.of(d), k -> w[k], IDataSelector.of(pd, -period));
+            assertArrayEquals(sd, pd, 0);
+            sfilter.filter(IDataGetter.of(d), null, IDataSelector.of(sd, -period));
+            pfilter.filter(IDataGetter.of(d), null, IDataSelector.of(pd, -period));
+            assertArrayEquals(sd, pd, 0);
+        }
+    }
+
 }
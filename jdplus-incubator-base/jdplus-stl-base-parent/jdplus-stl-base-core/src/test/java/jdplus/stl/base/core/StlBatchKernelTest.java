@@ -0,0 +1,57 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+import java.util.concurrent.ForkJoinPool;
+import jdplus.stl.base.api.StlSpec;
+import jdplus.toolkit.base.core.math.matrices.FastMatrix;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import tck.demetra.data.Data;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class StlBatchKernelTest {
+
+    public StlBatchKernelTest() {
+    }
+
+    @Test
+    public void testBatch() {
+        int n = Data.EXPORTS.length, m = 20;
+        FastMatrix data = FastMatrix.make(n, m);
+        for (int j = 0; j < m; ++j) {
+            data.column(j).copyFrom(Data.EXPORTS, 0);
+            data.set(j, j, Double.NaN);
+            data.column(j).mul(1 + .01 * j);
+        }
+        StlSpec spec = StlSpec.createDefault(12, true, true);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        StlBatchResults rslt = StlBatchKernel.of(spec, pool, 3).process(data);
+        pool.shutdown();
+        assertEquals(m, rslt.getSeriesCount());
+        for (int j = 0; j < m; ++j) {
+            RawStlResults cur = new RawStlKernel(spec).process(data.column(j));
+            assertArrayEquals(cur.getTrend().toArray(), rslt.getTrend().column(j).toArray(), 0);
+            assertArrayEquals(cur.getSeasonal().toArray(), rslt.getSeasonal().column(j).toArray(), 0);
+            assertArrayEquals(cur.getWeights().toArray(), rslt.getWeights().column(j).toArray(), 0);
+            assertArrayEquals(cur.getSa().toArray(), rslt.getSa().column(j).toArray(), 0);
+        }
+    }
+}
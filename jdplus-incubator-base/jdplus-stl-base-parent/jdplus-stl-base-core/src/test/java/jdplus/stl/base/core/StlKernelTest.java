@@ -27,6 +27,7 @@ import jdplus.toolkit.base.api.data.DoubleSeq;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Disabled;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  *
@@ -136,6 +137,75 @@ public class StlKernelTest {
 //        System.out.println(rslt.getIrregular());
       }
 
+    @Test
+    public void testReuse() {
+        StlSpec spec = StlSpec.createDefault(12, true, true);
+        RawStlKernel stl = new RawStlKernel(spec);
+        DoubleSeq s = DoubleSeq.of(Data.EXPORTS);
+        RawStlResults rslt = stl.process(s);
+        StlWorkspace ws = stl.getWorkspace();
+        // other series of the same length
+        DataBlock z = DataBlock.copyOf(Data.EXPORTS);
+        z.set(5, Double.NaN);
+        RawStlResults zrslt = stl.process(z);
+        assertSame(ws, stl.getWorkspace());
+        RawStlResults zrslt2 = new RawStlKernel(spec).process(z);
+        assertArrayEquals(zrslt.getTrend().toArray(), zrslt2.getTrend().toArray(), 0);
+        assertArrayEquals(zrslt.getSeasonal().toArray(), zrslt2.getSeasonal().toArray(), 0);
+        assertArrayEquals(zrslt.getWeights().toArray(), zrslt2.getWeights().toArray(), 0);
+        // the previous results are not modified
+        RawStlResults rslt2 = new RawStlKernel(spec).process(s);
+        assertArrayEquals(rslt.getTrend().toArray(), rslt2.getTrend().toArray(), 0);
+        assertArrayEquals(rslt.getSeasonal().toArray(), rslt2.getSeasonal().toArray(), 0);
+    }
+
+    @Test
+    public void testUpdate() {
+        StlSpec spec = StlSpec.createDefault(12, 7, false, false);
+        RawStlKernel stl = new RawStlKernel(spec);
+        // long series, to be sure that the update is not a full processing
+        int n = 1200;
+        double[] data = new double[n];
+        for (int i = 0; i < n; ++i) {
+            data[i] = Data.ABS_RETAIL[i % Data.ABS_RETAIL.length] + i;
+        }
+        RawStlResults rslt = stl.process(DoubleSeq.of(data, 0, n - 24));
+        rslt = stl.update(rslt, DoubleSeq.of(data, n - 24, 12), 2);
+        assertEquals(1, rslt.getUpdates());
+        rslt = stl.update(rslt, DoubleSeq.of(data, n - 12, 12), 2);
+        assertEquals(2, rslt.getUpdates());
+        RawStlResults full = new RawStlKernel(spec).process(DoubleSeq.of(data));
+        assertArrayEquals(full.getTrend().toArray(), rslt.getTrend().toArray(), 1e-9);
+        assertArrayEquals(full.getSeasonal().toArray(), rslt.getSeasonal().toArray(), 1e-9);
+        // refresh
+        rslt = stl.update(rslt, DoubleSeq.of(data, n - 12, 12), 2);
+        assertEquals(0, rslt.getUpdates());
+    }
+
+    @Test
+    public void testUpdateWithManyInnerLoops() {
+        // the segment of the update grows with the number of inner loops
+        int n = 3000;
+        double[] data = new double[n];
+        Random rnd = new Random(0);
+        for (int i = 0; i < n; ++i) {
+            data[i] = Data.ABS_RETAIL[i % Data.ABS_RETAIL.length] + i + 100 * rnd.nextGaussian();
+        }
+        for (int nin : new int[]{3, 5}) {
+            StlSpec spec = StlSpec.createDefault(12, 7, false, false)
+                    .toBuilder()
+                    .innerLoopsCount(nin)
+                    .build();
+            RawStlKernel stl = new RawStlKernel(spec);
+            RawStlResults rslt = stl.process(DoubleSeq.of(data, 0, n - 12));
+            rslt = stl.update(rslt, DoubleSeq.of(data, n - 12, 12), 1);
+            assertEquals(1, rslt.getUpdates());
+            RawStlResults full = new RawStlKernel(spec).process(DoubleSeq.of(data));
+            assertArrayEquals(full.getTrend().toArray(), rslt.getTrend().toArray(), 1e-9);
+            assertArrayEquals(full.getSeasonal().toArray(), rslt.getSeasonal().toArray(), 1e-9);
+        }
+    }
+
     public static void main(String[] args) {
         long t0 = System.currentTimeMillis();
         for (int i = 0; i < 10000; ++i) {
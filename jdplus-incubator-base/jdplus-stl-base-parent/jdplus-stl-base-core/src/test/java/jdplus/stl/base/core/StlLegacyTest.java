@@ -20,11 +20,13 @@ import jdplus.stl.base.api.StlLegacySpec;
 import jdplus.toolkit.base.api.data.Doubles;
 import tck.demetra.data.Data;
 import jdplus.toolkit.base.core.data.DataBlock;
+import java.util.Arrays;
 import java.util.Random;
 import jdplus.toolkit.base.api.data.DoubleSeq;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  *
@@ -74,9 +76,9 @@ public class StlLegacyTest {
         double[] data = Data.ABS_RETAIL;
         
         stl.process(DoubleSeq.of(data, data.length-120, 120));
-        System.out.println(DataBlock.of(stl.trend));
-        System.out.println(DataBlock.of(stl.season));
-        System.out.println(DataBlock.of(stl.fit));
+        System.out.println(DataBlock.of(stl.getTrend()));
+        System.out.println(DataBlock.of(stl.getSeason()));
+        System.out.println(DataBlock.of(stl.getFit()));
     }
 
     @Test
@@ -120,6 +122,32 @@ public class StlLegacyTest {
 //        System.out.println(new DataBlock(stl.irr));
     }
 
+    @Test
+    public void testInPlace() {
+        StlLegacySpec spec = StlLegacySpec.defaultSpec(12, 7, true);
+        spec.setMultiplicative(true);
+        spec.setNo(5);
+        StlLegacy stl = new StlLegacy(spec);
+        stl.process(Doubles.of(Data.EXPORTS));
+
+        int n = Data.EXPORTS.length;
+        double[] out = new double[7 * n];
+        Arrays.fill(out, -1);
+        StlLegacyWorkspace ws = StlLegacyWorkspace.of(n, 12);
+        StlLegacy istl = new StlLegacy(spec);
+        // twice, to check that the workspace and the output can be reused
+        for (int k = 0; k < 2; ++k) {
+            assertTrue(istl.process(Data.EXPORTS, ws, out, 2 * n));
+            assertArrayEquals(stl.getTrend(), Arrays.copyOfRange(out, 2 * n, 3 * n));
+            assertArrayEquals(stl.getSeason(), Arrays.copyOfRange(out, 3 * n, 4 * n));
+            assertArrayEquals(stl.getIrr(), Arrays.copyOfRange(out, 4 * n, 5 * n));
+            assertArrayEquals(stl.getFit(), Arrays.copyOfRange(out, 5 * n, 6 * n));
+            assertArrayEquals(stl.getWeights(), Arrays.copyOfRange(out, 6 * n, 7 * n));
+        }
+        assertEquals(-1, out[2 * n - 1]);
+        assertThrows(IllegalArgumentException.class, () -> istl.process(Data.EXPORTS, ws, out, 3 * n));
+    }
+
     public static void main(String[] args) {
         long t0 = System.currentTimeMillis();
         for (int i = 0; i < 100000; ++i) {
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import jdplus.stl.base.api.MStlSpec;
+import jdplus.stl.base.api.StlSpec;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.toolkit.base.core.math.matrices.FastMatrix;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import tck.demetra.data.Data;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class StlResultsStoreTest {
+
+    public StlResultsStoreTest() {
+    }
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void testBatch() throws IOException {
+        int n = Data.EXPORTS.length, m = 10;
+        FastMatrix data = FastMatrix.make(n, m);
+        for (int j = 0; j < m; ++j) {
+            data.column(j).copyFrom(Data.EXPORTS, 0);
+            data.column(j).mul(1 + .01 * j);
+        }
+        data.column(3).set(Double.NaN);
+        StlSpec spec = StlSpec.createDefault(12, true, true);
+        StlBatchResults rslt = StlBatchKernel.of(spec, null, 4).process(data);
+        try (StlResultsStore store = StlResultsStore.create(folder, m, n, 12)) {
+            StlBatchKernel.of(spec, null, 4).process(data, store);
+        }
+        try (StlResultsReader reader = StlResultsReader.open(folder)) {
+            assertEquals(m, reader.getSeriesCount());
+            assertEquals(n, reader.getLength());
+            assertEquals(6, reader.getComponents().size());
+            for (int j = 0; j < m; ++j) {
+                assertArrayEquals(rslt.getSa().column(j).toArray(), reader.get(StlResultsStore.SA, j).toArray(), 0);
+                assertArrayEquals(rslt.getTrend().column(j).toArray(), reader.get(StlResultsStore.TREND, j).toArray(), 0);
+                assertArrayEquals(rslt.getSeasonal().column(j).toArray(), reader.getSeasonal(12, j).toArray(), 0);
+                assertArrayEquals(rslt.getWeights().column(j).toArray(), reader.get(StlResultsStore.WEIGHTS, j).toArray(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testMStl() throws IOException {
+        DoubleSeq y = DoubleSeq.of(Data.ABS_RETAIL);
+        MStlSpec spec = MStlSpec.createDefault(new int[]{3, 12}, true);
+        MStlResults rslt = MStlKernel.of(spec).process(y);
+        try (StlResultsStore store = StlResultsStore.create(folder, 2, y.length(), 3, 12)) {
+            store.put(0, rslt);
+            store.put(1, (MStlResults) null);
+        }
+        try (StlResultsReader reader = StlResultsReader.open(folder)) {
+            assertArrayEquals(rslt.getSeasons().get(3).toArray(), reader.getSeasonal(3, 0).toArray(), 0);
+            assertArrayEquals(rslt.getSeasons().get(12).toArray(), reader.getSeasonal(12, 0).toArray(), 0);
+            assertArrayEquals(rslt.getIrregular().toArray(), reader.get(StlResultsStore.IRREGULAR, 0).toArray(), 0);
+            assertTrue(Double.isNaN(reader.get(StlResultsStore.FIT, 1).get(0)));
+        }
+    }
+
+    @Test
+    public void testKernel() throws IOException {
+        DoubleSeq y = DoubleSeq.of(Data.ABS_RETAIL);
+        RawStlKernel kernel = new RawStlKernel(StlSpec.createDefault(12, false, false));
+        kernel.process(y);
+        try (StlResultsStore store = StlResultsStore.create(folder, 1, y.length(), 3, 12)) {
+            // the store should contain a single seasonal component
+            assertThrows(IllegalArgumentException.class, () -> store.put(0, kernel));
+        }
+        try (StlResultsStore store = StlResultsStore.create(folder, 1, y.length(), 4)) {
+            // the periods should be the same
+            assertThrows(IllegalArgumentException.class, () -> store.put(0, kernel));
+        }
+        StlResultsStore store = StlResultsStore.create(folder, 1, y.length(), 12);
+        store.put(0, kernel);
+        store.close();
+        assertThrows(IllegalStateException.class, () -> store.put(0, kernel));
+        DoubleSeq sa;
+        try (StlResultsReader reader = StlResultsReader.open(folder)) {
+            sa = reader.get(StlResultsStore.SA, 0);
+            assertArrayEquals(kernel.getWorkspace().sa, sa.toArray(), 0);
+        }
+        assertThrows(IllegalStateException.class, () -> sa.get(0));
+    }
+
+    @Test
+    public void testCreateFailure() throws IOException {
+        // the column of the fit can't be created
+        Files.createDirectories(folder.resolve(StlResultsStore.FIT + StlResultsStore.SUFFIX));
+        assertThrows(IOException.class, () -> StlResultsStore.create(folder, 5, 24, 12));
+        // the columns created before the failure can be created again
+        Files.delete(folder.resolve(StlResultsStore.FIT + StlResultsStore.SUFFIX));
+        try (StlResultsStore store = StlResultsStore.create(folder, 5, 24, 12)) {
+            assertEquals(5, store.getSeriesCount());
+        }
+    }
+}
@@ -27,7 +27,7 @@ import jdplus.stl.base.api.LoessSpec;
 @lombok.experimental.UtilityClass
 public class LoessSpecMapping {
 
-    public static final String WIN = "window", DEG = "degree", JUMPS = "jumps", WEIGHTS = "weights";
+    public static final String WIN = "window", DEG = "degree", JUMPS = "jumps", WEIGHTS = "weights", INTERPOLATION = "interpolation";
 
     public LoessSpec read(InformationSet info) {
 
@@ -36,12 +36,14 @@ public class LoessSpecMapping {
         Integer jump = info.get(JUMPS, Integer.class);
 
         String w = info.get(WEIGHTS, String.class);
+        String interpolation = info.get(INTERPOLATION, String.class);
 
         WeightFunction fn = w == null ? LoessSpec.DEF_WEIGHTS : WeightFunction.valueOf(w);
+        LoessSpec.Interpolation ip = interpolation == null ? LoessSpec.Interpolation.LINEAR : LoessSpec.Interpolation.valueOf(interpolation);
 
         int iwin = win, ideg = deg == null ? 1 : deg, ijump = jump == null ? 0 : jump;
 
-        return LoessSpec.of(iwin, ideg, ijump, fn);
+        return LoessSpec.of(iwin, ideg, ijump, fn, ip);
     }
 
     public InformationSet write(LoessSpec spec, boolean verbose) {
@@ -57,6 +59,9 @@ public class LoessSpecMapping {
         if (verbose || spec.getLoessFunction() != LoessSpec.DEF_WEIGHTS) {
             info.set(WEIGHTS, spec.getLoessFunction().name());
         }
+        if (verbose || spec.getInterpolation() != LoessSpec.Interpolation.LINEAR) {
+            info.set(INTERPOLATION, spec.getInterpolation().name());
+        }
         return info;
     }
 
@@ -24,6 +24,7 @@ import jdplus.stl.base.core.MStlKernel;
 import jdplus.stl.base.core.MStlResults;
 import jdplus.stl.base.core.RawStlResults;
 import jdplus.stl.base.core.StlLegacy;
+import jdplus.stl.base.core.StlLegacyWorkspace;
 
 /**
  *
@@ -74,33 +75,20 @@ public class StlDecomposition {
         spec.setWthreshold(weightThreshold);
         spec.setWfn(WeightFunction.valueOf(weightsFunction).asFunction());
         StlLegacy stl = new StlLegacy(spec);
-        DoubleSeq y = DoubleSeq.of(data).cleanExtremities();
+        double[] y = DoubleSeq.of(data).cleanExtremities().toArray();
         
-        int n = y.length();
-        if (!stl.process(y)) {
+        int n = y.length;
+        // columns: y, sa, trend, seasonal, irregular, fit, weights
+        // the components are directly written in the storage of the matrix
+        double[] z = new double[7 * n];
+        System.arraycopy(y, 0, z, 0, n);
+        if (!stl.process(y, StlLegacyWorkspace.of(n, period), z, 2 * n)) {
             return null;
         }
-        
-        FastMatrix M = FastMatrix.make(n, 7);
-        
-        M.column(0).copy(y);
-        M.column(2).copyFrom(stl.getTrend(), 0);
-        M.column(3).copyFrom(stl.getSeason(), 0);
-        M.column(4).copyFrom(stl.getIrr(), 0);
-        M.column(5).copyFrom(stl.getFit(), 0);
-        double[] weights = stl.getWeights();
-        if (weights != null) {
-            M.column(6).copyFrom(weights, 0);
-        } else {
-            M.column(6).set(1);
-        }
-        M.column(1).copy(M.column(0));
-        if (mul) {
-            M.column(1).div(M.column(3));
-        } else {
-            M.column(1).sub(M.column(3));
+        for (int i = 0, j = 3 * n; i < n; ++i, ++j) {
+            z[n + i] = mul ? y[i] / z[j] : y[i] - z[j];
         }
-        return M;
+        return Matrix.of(z, n, 7);
     }
     
     private Matrix stl_new(double[] data, int period, boolean mul, int swindow, int twindow, int lwindow, int sdegree, int tdegree, int ldegree, int sjump, int tjump, int ljump, int nin, int nout, double weightThreshold, String weightsFunction) {
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.vector;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import jdplus.stl.base.core.LoessKernel;
+
+/**
+ * Loess kernel based on the (incubating) Vector API. The loops are processed
+ * by vectors of the preferred size of the platform; the sums are accumulated
+ * by lanes, so that the results may differ from the plain loops in the last
+ * bits. Short windows (less than two vectors) are processed by plain loops,
+ * which are faster in that case.
+ *
+ * The kernel is loaded by the loess filters when the module
+ * jdk.incubator.vector is available (see LoessKernels in
+ * jdplus-stl-base-core).
+ *
+ * @author Jean Palate
+ */
+public final class VectorLoessKernel implements LoessKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    // minimal length of the vectorized loops
+    private static final int MIN_LENGTH = 2 * LANES;
+
+    /**
+     * @throws UnsupportedOperationException if the platform doesn't provide
+     * vectors of doubles
+     */
+    public VectorLoessKernel() {
+        if (LANES < 2) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // positions 0, 1, ..., LANES-1
+    private static DoubleVector iota() {
+        return DoubleVector.zero(SPECIES).addIndex(1);
+    }
+
+    @Override
+    public double normalize(double[] w, int n, double s) {
+        int j = 0;
+        double a = 0;
+        if (n >= MIN_LENGTH) {
+            int bound = SPECIES.loopBound(n);
+            DoubleVector acc = DoubleVector.zero(SPECIES), pos = iota();
+            for (; j < bound; j += LANES) {
+                DoubleVector wj = DoubleVector.fromArray(SPECIES, w, j).div(s);
+                wj.intoArray(w, j);
+                acc = wj.fma(pos, acc);
+                pos = pos.add(LANES);
+            }
+            a = acc.reduceLanes(VectorOperators.ADD);
+        }
+        for (; j < n; ++j) {
+            double wj = w[j] / s;
+            w[j] = wj;
+            a += wj * j;
+        }
+        return a;
+    }
+
+    @Override
+    public double spread(double[] w, int n, double a) {
+        int j = 0;
+        double c = 0;
+        if (n >= MIN_LENGTH) {
+            int bound = SPECIES.loopBound(n);
+            DoubleVector acc = DoubleVector.zero(SPECIES), ja = iota().sub(a);
+            for (; j < bound; j += LANES) {
+                DoubleVector wj = DoubleVector.fromArray(SPECIES, w, j);
+                acc = wj.mul(ja).fma(ja, acc);
+                ja = ja.add(LANES);
+            }
+            c = acc.reduceLanes(VectorOperators.ADD);
+        }
+        for (; j < n; ++j) {
+            double d = j - a;
+            c += w[j] * d * d;
+        }
+        return c;
+    }
+
+    @Override
+    public void correct(double[] w, int n, double a, double b) {
+        int j = 0;
+        if (n >= MIN_LENGTH) {
+            int bound = SPECIES.loopBound(n);
+            DoubleVector ja = iota().sub(a);
+            for (; j < bound; j += LANES) {
+                DoubleVector wj = DoubleVector.fromArray(SPECIES, w, j);
+                wj.mul(ja.fma(b, 1)).intoArray(w, j);
+                ja = ja.add(LANES);
+            }
+        }
+        for (; j < n; ++j) {
+            w[j] *= b * (j - a) + 1;
+        }
+    }
+
+    @Override
+    public double dot(double[] w, double[] y, int n) {
+        int j = 0;
+        double s = 0;
+        if (n >= MIN_LENGTH) {
+            int bound = SPECIES.loopBound(n);
+            DoubleVector acc = DoubleVector.zero(SPECIES);
+            for (; j < bound; j += LANES) {
+                acc = DoubleVector.fromArray(SPECIES, w, j).fma(DoubleVector.fromArray(SPECIES, y, j), acc);
+            }
+            s = acc.reduceLanes(VectorOperators.ADD);
+        }
+        for (; j < n; ++j) {
+            s += w[j] * y[j];
+        }
+        return s;
+    }
+}
@@ -0,0 +1,7 @@
+module jdplus.stl.base.vector {
+
+    requires jdk.incubator.vector;
+    requires jdplus.stl.base.core;
+
+    exports jdplus.stl.base.vector;
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.stl.base.vector;
+
+import java.util.Random;
+import jdplus.stl.base.api.LoessSpec;
+import jdplus.stl.base.core.IDataGetter;
+import jdplus.stl.base.core.IDataSelector;
+import jdplus.stl.base.core.LoessFilter;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class VectorLoessKernelTest {
+
+    public VectorLoessKernelTest() {
+    }
+
+    @Test
+    public void testLoops() {
+        VectorLoessKernel kernel = new VectorLoessKernel();
+        Random rnd = new Random(0);
+        // all the lengths around the size of the vectors, and some windows of the seasonal filters
+        int[] lengths = new int[40];
+        for (int i = 0; i < 36; ++i) {
+            lengths[i] = i + 1;
+        }
+        lengths[36] = 53;
+        lengths[37] = 365;
+        lengths[38] = 731;
+        lengths[39] = 1001;
+        for (int n : lengths) {
+            double[] w = new double[n], y = new double[n];
+            double s = 0;
+            for (int j = 0; j < n; ++j) {
+                w[j] = rnd.nextDouble();
+                y[j] = rnd.nextGaussian();
+                s += w[j];
+            }
+            double[] v = w.clone();
+            double a = 0;
+            for (int j = 0; j < n; ++j) {
+                w[j] /= s;
+                a += w[j] * j;
+            }
+            assertEquals(a, kernel.normalize(v, n, s), 1e-12 * n);
+            assertArrayEquals(w, v, 1e-15);
+
+            double c = 0;
+            for (int j = 0; j < n; ++j) {
+                c += w[j] * (j - a) * (j - a);
+            }
+            assertEquals(c, kernel.spread(w, n, a), 1e-12 * c);
+
+            double b = (n / 3.0 - a) / c;
+            for (int j = 0; j < n; ++j) {
+                v[j] = w[j];
+                w[j] *= b * (j - a) + 1;
+            }
+            kernel.correct(v, n, a, b);
+            assertArrayEquals(w, v, 1e-14);
+
+            double d = 0;
+            for (int j = 0; j < n; ++j) {
+                d += w[j] * y[j];
+            }
+            assertEquals(d, kernel.dot(w, y, n), 1e-13);
+        }
+    }
+
+    @Test
+    public void testKernelSelection() {
+        // the tests are run with the incubator module: the loess filters use the vectorized loops
+        assertInstanceOf(VectorLoessKernel.class, LoessFilter.getKernel());
+
+        int n = 500;
+        Random rnd = new Random(1);
+        double[] y = new double[n], w = new double[n], ys = new double[n];
+        for (int i = 0; i < n; ++i) {
+            y[i] = Math.sin(i / 20.0) + rnd.nextGaussian();
+            w[i] = rnd.nextDouble();
+        }
+        y[100] = Double.NaN;
+        LoessFilter filter = new LoessFilter(LoessSpec.of(31, 1, 0, null));
+        assertTrue(filter.filter(IDataGetter.of(y), k -> w[k], IDataSelector.of(ys)));
+        for (int i = 0; i < n; ++i) {
+            assertTrue(Double.isFinite(ys[i]));
+        }
+    }
+}
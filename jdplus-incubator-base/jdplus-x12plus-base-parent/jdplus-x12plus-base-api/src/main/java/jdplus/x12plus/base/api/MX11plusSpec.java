@@ -60,16 +60,16 @@ public class MX11plusSpec implements SaSpecification {
      */
     private int backcastHorizon;
 
-    public static final X11plusSpec DEFAULT_UNDEFINED = X11plusSpec.builder()
+    public static final MX11plusSpec DEFAULT_UNDEFINED = MX11plusSpec.builder()
             .mode(DecompositionMode.Undefined)
             .build();
 
-    public static final X11plusSpec DEFAULT = X11plusSpec.builder()
+    public static final MX11plusSpec DEFAULT = MX11plusSpec.builder()
             .build();
 
     @LombokWorkaround
-    public static X11plusSpec.Builder builder() {
-        return new X11plusSpec.Builder()
+    public static Builder builder() {
+        return new Builder()
                 .forecastHorizon(X11plusSpec.DEFAULT_FORECAST_HORIZON)
                 .backcastHorizon(X11plusSpec.DEFAULT_BACKCAST_HORIZON)
                 .mode(DecompositionMode.Multiplicative);
@@ -97,6 +97,7 @@ public class MX11plusSpec implements SaSpecification {
         PeriodSpec cur = periodSpec.orElseThrow();
         return X11plusSpec.builder()
                 .mode(mode)
+                .period(cur.getPeriod())
                 .backcastHorizon(backcastHorizon)
                 .forecastHorizon(forecastHorizon)
                 .trendFilter(cur.getTrendFilter())
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.x12plus.base.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Store of (immutable) objects with a bounded number of entries. The least
+ * recently used entries are evicted first. The lookups don't lock; the
+ * eviction scans the store, which should thus be small.
+ *
+ * @author Jean Palate
+ * @param <K> Keys (with consistent equals/hashCode)
+ * @param <V> Values
+ */
+final class BoundedCache<K, V> {
+
+    private static final class Entry<V> {
+
+        final V value;
+        volatile long stamp;
+
+        Entry(V value, long stamp) {
+            this.value = value;
+            this.stamp = stamp;
+        }
+    }
+
+    private final int capacity;
+    private final Map<K, Entry<V>> store = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+    /**
+     *
+     * @param capacity Maximum number of entries kept in the store
+     */
+    BoundedCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the value corresponding to a key. The value is created by the
+     * factory if it is not in the store
+     *
+     * @param key
+     * @param factory
+     * @return
+     */
+    V get(K key, Function<? super K, ? extends V> factory) {
+        Entry<V> entry = store.get(key);
+        if (entry != null) {
+            hits.increment();
+            entry.stamp = clock.incrementAndGet();
+        } else {
+            misses.increment();
+            entry = store.computeIfAbsent(key, k -> new Entry<>(factory.apply(k), clock.incrementAndGet()));
+            if (store.size() > capacity) {
+                evict();
+            }
+        }
+        return entry.value;
+    }
+
+    private void evict() {
+        while (store.size() > capacity) {
+            Map.Entry<K, Entry<V>> lru = null;
+            for (Map.Entry<K, Entry<V>> cur : store.entrySet()) {
+                if (lru == null || cur.getValue().stamp < lru.getValue().stamp) {
+                    lru = cur;
+                }
+            }
+            if (lru == null) {
+                return;
+            }
+            store.remove(lru.getKey(), lru.getValue());
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The current number of entries
+     */
+    int size() {
+        return store.size();
+    }
+
+    /**
+     * @return The number of requests served by the store
+     */
+    long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of requests that needed the creation of a new value
+     */
+    long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Clears the store and resets the counters
+     */
+    void clear() {
+        store.clear();
+        hits.reset();
+        misses.reset();
+    }
+}
@@ -16,14 +16,16 @@
  */
 package jdplus.x12plus.base.core;
 
-import jdplus.toolkit.base.api.data.Doubles;
 import nbbrd.design.Development;
 import jdplus.sa.base.api.DecompositionMode;
 import java.util.Arrays;
 import jdplus.toolkit.base.api.data.DoubleSeq;
 
 /**
- * Default implementation for the correction of extreme values
+ * Default implementation for the correction of extreme values.
+ * A corrector can be reused for successive series; its working buffers are
+ * then reused too, so that the weights provided by a previous analysis
+ * (getObservationWeights()) are no longer valid.
  *
  * @author Frank Osaer, Jean Palate
  */
@@ -59,6 +61,9 @@ class DefaultExtremeValuesCorrector {
     private double lsigma = 1.5, usigma = 2.5;
     private DoubleSeq scur, sweights;
     private int nperiods = 5;
+    // working buffers, reused when the corrector is reused
+    private double[] w, wtmp;
+    private final int[] positions = new int[4];
 
     /**
      * Searches the extreme values in a given series
@@ -91,17 +96,38 @@ class DefaultExtremeValuesCorrector {
      * @return The corrected series. A new time series is always returned.
      */
     public DoubleSeq applyCorrections(DoubleSeq sorig, DoubleSeq corrections) {
-        double[] ns = sorig.toArray();
-        for (int i = 0; i < ns.length; ++i) {
+        double[] ns = new double[sorig.length()];
+        applyCorrections(sorig, corrections, ns);
+        return DoubleSeq.of(ns);
+    }
+
+    /**
+     * Applies the detected corrections to the original series, without
+     * allocation
+     *
+     * @param sorig The original series
+     * @param corrections The corrections
+     * @param buffer The buffer that will contain the corrected series. Its
+     * length should be at least the length of the original series. It may be
+     * the buffer of the corrections
+     */
+    public void applyCorrections(DoubleSeq sorig, DoubleSeq corrections, double[] buffer) {
+        int n = sorig.length();
+        for (int i = 0; i < n; ++i) {
             double x = corrections.get(i);
-            if (!Double.isNaN(x)) {
-                ns[i] = x;
-            }
+            buffer[i] = Double.isNaN(x) ? sorig.get(i) : x;
         }
-        return DoubleSeq.of(ns);
     }
 
-    private double[] calcStdev(DoubleSeq s) {
+    /**
+     * Computes the standard deviations on moving windows of nperiods years.
+     * The sums of squares are computed once by block of one year; each window
+     * is then obtained by summing nperiods blocks, so that the cost is O(n)
+     *
+     * @param s
+     * @return
+     */
+    double[] calcStdev(DoubleSeq s) {
 
         int n = s.length();
         int nfy = (n - start) / period;
@@ -110,6 +136,17 @@ class DefaultExtremeValuesCorrector {
             return new double[]{calcSingleStdev(s)};
         }
 
+        // blocks: first incomplete year (possibly empty), complete years,
+        // last incomplete year (possibly empty)
+        double[] e = new double[nfy + 2];
+        int[] m = new int[nfy + 2];
+        sumOfSquares(s, 0, start, e, m, 0);
+        int ibeg = start;
+        for (int j = 1; j <= nfy; ++j, ibeg += period) {
+            sumOfSquares(s, ibeg, ibeg + period, e, m, j);
+        }
+        sumOfSquares(s, ibeg, n, e, m, nfy + 1);
+
         int ny = nfy;
         int ie = nperiods / 2;
         if (start > 0) {
@@ -123,34 +160,54 @@ class DefaultExtremeValuesCorrector {
         }
         double[] stdev = new double[ny];
         // first years
-        double e = calcSingleStdev(s.range(0, start + nperiods * period));
+        double cur = stdev(e, m, 0, nperiods + 1);
         for (int i = 0; i < ie; ++i) {
-            stdev[i] = e;
+            stdev[i] = cur;
         }
-        int ibeg = start, iend = ibeg + nperiods * period;
-        while (iend <= n) {
-            DoubleSeq cur = s.range(ibeg, iend);
-            e = calcSingleStdev(cur);
-            stdev[ie++] = e;
-            ibeg += period;
-            iend += period;
+        for (int j = 1; j + nperiods <= nfy + 1; ++j) {
+            stdev[ie++] = stdev(e, m, j, nperiods);
         }
         // the last block is too short...
         if (cend) {
-            ibeg -= period;
-            DoubleSeq cur = s.range(ibeg, n);
-            e = calcSingleStdev(cur);
+            cur = stdev(e, m, nfy - nperiods + 1, nperiods + 1);
         } else {
-            e = stdev[ie - 1];
+            cur = stdev[ie - 1];
         }
 
         for (int i = ie; i < stdev.length; ++i) {
-            stdev[i] = e;
+            stdev[i] = cur;
         }
         return stdev;
     }
 
-    private double calcSingleStdev(DoubleSeq data) {
+    private void sumOfSquares(DoubleSeq data, int beg, int end, double[] e, int[] m, int pos) {
+        double se = 0;
+        int nm = 0;
+        for (int i = beg; i < end; ++i) {
+            double x = data.get(i);
+            if (!Double.isNaN(x)) {
+                if (mul) {
+                    x -= 1;
+                }
+                se += x * x;
+                ++nm;
+            }
+        }
+        e[pos] = se;
+        m[pos] = nm;
+    }
+
+    private static double stdev(double[] e, int[] m, int beg, int nblocks) {
+        double se = 0;
+        int nm = 0;
+        for (int j = beg; j < beg + nblocks; ++j) {
+            se += e[j];
+            nm += m[j];
+        }
+        return Math.sqrt(se / nm);
+    }
+
+    double calcSingleStdev(DoubleSeq data) {
         int n = data.length();
         int nm = 0;
         double e = 0;
@@ -177,8 +234,22 @@ class DefaultExtremeValuesCorrector {
      * corrections for the other periods
      */
     public DoubleSeq computeCorrections(DoubleSeq s) {
+        double[] ns = new double[s.length()];
+        computeCorrections(s, ns);
+        return DoubleSeq.of(ns);
+    }
+
+    /**
+     * Computes the corrections for a given series, without allocation (except
+     * for the period averages, when they are needed)
+     *
+     * @param s The series being corrected
+     * @param ns The buffer that will contain the corrections (see
+     * computeCorrections(DoubleSeq)). Its length should be at least the length
+     * of the series
+     */
+    public void computeCorrections(DoubleSeq s, double[] ns) {
         int n = s.length();
-        double[] ns = new double[n];
         int beg = start;
         double[] avgs = null;
         for (int i = 0; i < n; i++) {
@@ -188,12 +259,9 @@ class DefaultExtremeValuesCorrector {
             } else {
                 // correct value
                 double x = e * s.get(i);
-                //   int[] pos = searchPositionsForOutlierCorrection(i, freq);
-                int[] pos;
-                pos = searchPositionsForOutlierCorrection(i, period);
-                if (pos != null) {
+                if (searchPositionsForOutlierCorrection(i, period)) {
                     for (int k = 0; k < 4; k++) {
-                        x += s.get(pos[k]);
+                        x += s.get(positions[k]);
                     }
                     x *= 1.0 / (4.0 + e);
                     ns[i] = x;
@@ -205,7 +273,6 @@ class DefaultExtremeValuesCorrector {
                 }
             }
         }
-        return DoubleSeq.of(ns);
     }
 
     /**
@@ -216,9 +283,20 @@ class DefaultExtremeValuesCorrector {
      * @return A new series is always returned
      */
     public DoubleSeq getCorrectionFactors() {
+        double[] ns = new double[sweights.length()];
+        getCorrectionFactors(ns);
+        return DoubleSeq.of(ns);
+    }
+
+    /**
+     * Gets the correction factors, without allocation
+     *
+     * @param ns The buffer that will contain the correction factors. Its length
+     * should be at least the length of the analysed series
+     */
+    public void getCorrectionFactors(double[] ns) {
         int n = sweights.length();
-        double[] ns = new double[n];
-        Arrays.fill(ns, mul ? 1 : 0);
+        Arrays.fill(ns, 0, n, mul ? 1 : 0);
         for (int i = 0; i < n; ++i) {
             double x = sweights.get(i);
             if (x < 1) {
@@ -230,7 +308,6 @@ class DefaultExtremeValuesCorrector {
                 }
             }
         }
-        return DoubleSeq.of(ns);
     }
 
     public DoubleSeq getObservationWeights() {
@@ -246,8 +323,10 @@ class DefaultExtremeValuesCorrector {
     private DoubleSeq outliersDetection(DoubleSeq cur, double[] stdev) {
         int n = cur.length();
 
-        double[] w = new double[n];
-        Arrays.fill(w, 1);
+        if (w == null || w.length < n) {
+            w = new double[n];
+        }
+        Arrays.fill(w, 0, n, 1);
 
         double xbar = mul ? 1 : 0;
         int y = 0;
@@ -277,24 +356,30 @@ class DefaultExtremeValuesCorrector {
                 iend = n;
             }
         }
-        return Doubles.of(w);
+        return DoubleSeq.of(w, 0, n);
     }
 
     private DoubleSeq removeExtremes(DoubleSeq in, DoubleSeq weights) {
-        double[] cin = in.toArray();
-
-        for (int i = 0; i < cin.length; ++i) {
-            if (sweights.get(i) == 0) {
-                cin[i] = Double.NaN;
-            }
+        int n = in.length();
+        if (wtmp == null || wtmp.length < n) {
+            wtmp = new double[n];
         }
-        return Doubles.of(cin);
+        for (int i = 0; i < n; ++i) {
+            wtmp[i] = weights.get(i) == 0 ? Double.NaN : in.get(i);
+        }
+        return DoubleSeq.of(wtmp, 0, n);
     }
 
-    private int[] searchPositionsForOutlierCorrection(int p, final int period) {
+    /**
+     * Searches the positions used for the correction of an outlier. The
+     * positions are stored in the positions buffer
+     *
+     * @return False if there are not enough positions
+     */
+    private boolean searchPositionsForOutlierCorrection(int p, final int period) {
         int lp = 0, up = 0, lb = p, ub = p, k = 0;
 
-        int[] outs = new int[4];
+        int[] outs = positions;
         // look for two positions above value
         while (lb >= period && lp != 2) {
             lb -= period;
@@ -331,10 +416,7 @@ class DefaultExtremeValuesCorrector {
             }
         }
 
-        if (lp + up < 4) {
-            return null;
-        }
-        return outs;
+        return lp + up >= 4;
     }
 
     /**
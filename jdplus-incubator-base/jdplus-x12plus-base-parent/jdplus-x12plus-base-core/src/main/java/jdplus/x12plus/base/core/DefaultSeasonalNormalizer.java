@@ -52,4 +52,30 @@ class DefaultSeasonalNormalizer {
             return DoubleSeq.of(x);
         }
     }
+
+    /**
+     * Normalizes the seasonal factors in a given buffer, without allocation
+     *
+     * @param in The seasonal factors
+     * @param nextend Number of periodic extensions at both ends
+     * @param context
+     * @param filter The normalization filter (see
+     * X11FilterFactory.makeSymmetricFilter(period))
+     * @param buffer Working buffer (length at least in.length())
+     * @param out The normalized factors (length at least in.length() +
+     * 2*nextend)
+     */
+    public void normalize(DoubleSeq in, int nextend, X11Context context, SymmetricFilter filter, double[] buffer, double[] out) {
+        int n = in.length();
+        int ndrop = filter.length() / 2;
+        filter.apply(in, DataBlock.of(buffer, ndrop, n - ndrop));
+        DataBlock t = DataBlock.of(buffer, 0, n);
+        CopyEndPoints cp = new CopyEndPoints(ndrop);
+        cp.process(in, t);
+        context.remove(in, t, DataBlock.of(out, nextend, nextend + n));
+        if (nextend > 0) {
+            CopyPeriodicEndPoints cpp = new CopyPeriodicEndPoints(nextend, context.getPeriod().intValue());
+            cpp.process(null, DataBlock.of(out, 0, n + 2 * nextend));
+        }
+    }
 }
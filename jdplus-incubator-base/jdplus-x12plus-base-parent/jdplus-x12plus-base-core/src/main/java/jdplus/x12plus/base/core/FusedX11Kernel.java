@@ -0,0 +1,198 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.x12plus.base.core;
+
+import java.util.Arrays;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.toolkit.base.core.data.DataBlock;
+import jdplus.toolkit.base.core.math.linearfilters.ISymmetricFiltering;
+import jdplus.toolkit.base.core.math.linearfilters.SymmetricFilter;
+import jdplus.x12plus.base.api.X11plusSpec;
+
+/**
+ * X11 decomposition (B, C and D steps) computed in a single pass, in the
+ * buffers of a workspace (see X11Workspace). The intermediate tables are not
+ * retained: the results only contain the final tables (D10, D11, D12, D13),
+ * which are identical to the ones of RawX11Kernel.
+ *
+ * The workspace, the extreme values corrector and the filters are reused when
+ * the kernel processes successive series of the same length, so that the
+ * decomposition of such series only allocates the final results (and the
+ * trends computed by the trend filters). Consequently, a kernel should not be
+ * used concurrently by several threads.
+ *
+ * @author Jean Palate
+ */
+public final class FusedX11Kernel {
+
+    private final X11plusSpec spec;
+    private X11Context context;
+    private X11Workspace ws;
+    private final DefaultExtremeValuesCorrector ecorr = new DefaultExtremeValuesCorrector();
+    // centered moving average of the steps 2 and of the normalization, reused as long as the period doesn't change
+    private SymmetricFilter mfilter;
+    private Number mperiod;
+
+    public FusedX11Kernel(X11plusSpec spec) {
+        this.spec = spec;
+    }
+
+    /**
+     * Decomposes a series. The context is built from the specification on the
+     * first call and it is reused for the next series
+     *
+     * @param data
+     * @return The final tables of the decomposition
+     */
+    public RawX11Results process(DoubleSeq data) {
+        if (context == null) {
+            context = X11Context.of(spec);
+        }
+        return process(data, context);
+    }
+
+    /**
+     * Decomposes a series
+     *
+     * @param data
+     * @param context
+     * @return The final tables of the decomposition
+     */
+    public RawX11Results process(DoubleSeq data, X11Context context) {
+        int n = data.length();
+        if (ws == null || !ws.isCompatible(n)) {
+            ws = X11Workspace.of(n);
+        }
+        if (mfilter == null || !context.getPeriod().equals(mperiod)) {
+            mperiod = context.getPeriod();
+            mfilter = X11FilterFactory.makeSymmetricFilter(mperiod);
+        }
+        int drop = mfilter.length() / 2;
+        ISymmetricFiltering ffilter = context.getFinalSeasonalFiltering();
+
+        // B step
+        DoubleSeq b7 = trend(data, drop, context, true);
+        DoubleSeq b8 = slot(ws.x8, n);
+        context.remove(data, b7, block(ws.x8, n));
+        X11SeasonalFiltersFactory.apply(ffilter, ws.x8, n, ws.sf);
+        DefaultSeasonalNormalizer.normalize(slot(ws.sf, n), 0, context, mfilter, ws.tmp, ws.s);
+        context.remove(b8, slot(ws.s, n), block(ws.tmp, n));
+        ecorr.setStart(0);
+        ecorr.analyse(slot(ws.tmp, n), context);
+        ecorr.computeCorrections(b8, ws.corr);
+        ecorr.applyCorrections(b8, slot(ws.corr, n), ws.g);
+        X11SeasonalFiltersFactory.apply(ffilter, ws.g, n, ws.sf);
+        DefaultSeasonalNormalizer.normalize(slot(ws.sf, n), 0, context, mfilter, ws.tmp, ws.s);
+        context.remove(data, slot(ws.s, n), block(ws.x11, n));
+        context.remove(slot(ws.x11, n), b7, block(ws.tmp, n));
+        ecorr.analyse(slot(ws.tmp, n), context);
+        ecorr.getCorrectionFactors(ws.f);
+
+        // C step
+        DoubleSeq c1 = slot(ws.x1, n);
+        context.remove(data, slot(ws.f, n), block(ws.x1, n));
+        DoubleSeq c7 = trend(c1, drop, context, false);
+        context.remove(c1, c7, block(ws.x8, n));
+        X11SeasonalFiltersFactory.apply(ffilter, ws.x8, n, ws.sf);
+        DefaultSeasonalNormalizer.normalize(slot(ws.sf, n), 0, context, mfilter, ws.tmp, ws.s);
+        context.remove(data, slot(ws.s, n), block(ws.x11, n));
+        context.remove(slot(ws.x11, n), c7, block(ws.tmp, n));
+        ecorr.analyse(slot(ws.tmp, n), context);
+        ecorr.getCorrectionFactors(ws.f);
+
+        // D step
+        DoubleSeq d1 = slot(ws.x1, n);
+        context.remove(data, slot(ws.f, n), block(ws.x1, n));
+        DoubleSeq d7 = trend(d1, drop, context, false);
+        context.remove(d1, d7, block(ws.x8, n));
+        X11SeasonalFiltersFactory.apply(ffilter, ws.x8, n, ws.sf);
+        DefaultSeasonalNormalizer.normalize(slot(ws.sf, n), 0, context, mfilter, ws.tmp, ws.s);
+        // d11bis in x6, d11 in x11
+        context.remove(d1, slot(ws.s, n), block(ws.x6, n));
+        context.remove(data, slot(ws.s, n), block(ws.x11, n));
+        DoubleSeq d12 = context.getTrendFiltering().process(slot(ws.x6, n));
+        if (context.getMode().isMultiplicative() && d12.anyMatch(z -> z <= 0)) {
+            throw new X11Exception(X11Exception.ERR_NEG);
+        }
+        context.remove(slot(ws.x11, n), d12, block(ws.tmp, n));
+
+        return RawX11Results.builder()
+                .mode(context.getMode())
+                .d10(DoubleSeq.of(Arrays.copyOf(ws.s, n)))
+                .d11(DoubleSeq.of(Arrays.copyOf(ws.x11, n)))
+                .d12(d12)
+                .d13(DoubleSeq.of(Arrays.copyOf(ws.tmp, n)))
+                .build();
+    }
+
+    /**
+     * First part of a step (tables 2 to 7)
+     *
+     * @param x1 The input of the step
+     * @param drop The number of points dropped at each end by the centered
+     * moving average
+     * @param context
+     * @param correct Correction of the extreme values in the SI ratios (B4)
+     * @return The trend (table 7)
+     */
+    private DoubleSeq trend(DoubleSeq x1, int drop, X11Context context, boolean correct) {
+        int n = x1.length(), m = n - 2 * drop;
+        ISymmetricFiltering ifilter = context.getInitialSeasonalFiltering();
+        // 2: centered moving average, 3: SI ratios
+        mfilter.apply(x1, block(ws.x2, m));
+        DoubleSeq x3 = slot(ws.x3, m);
+        context.remove(x1.drop(drop, drop), slot(ws.x2, m), block(ws.x3, m));
+        double[] x4 = ws.x3;
+        if (correct) {
+            X11SeasonalFiltersFactory.apply(ifilter, ws.x3, m, ws.sf);
+            DefaultSeasonalNormalizer.normalize(slot(ws.sf, m), 0, context, mfilter, ws.tmp, ws.s);
+            context.remove(x3, slot(ws.s, m), block(ws.tmp, m));
+            ecorr.setStart(drop);
+            ecorr.analyse(slot(ws.tmp, m), context);
+            ecorr.computeCorrections(x3, ws.corr);
+            ecorr.applyCorrections(x3, slot(ws.corr, m), ws.g);
+            x4 = ws.g;
+        }
+        // 5: seasonal factors, 6: seasonally adjusted series
+        X11SeasonalFiltersFactory.apply(ifilter, x4, m, ws.sf);
+        DefaultSeasonalNormalizer.normalize(slot(ws.sf, m), drop, context, mfilter, ws.tmp, ws.s);
+        context.remove(x1, slot(ws.s, n), block(ws.x6, n));
+        DoubleSeq x7 = context.getTrendFiltering().process(slot(ws.x6, n));
+        if (context.getMode().isMultiplicative() && x7.anyMatch(z -> z <= 0)) {
+            throw new X11Exception(X11Exception.ERR_NEG);
+        }
+        return x7;
+    }
+
+    private static DoubleSeq slot(double[] buffer, int n) {
+        return DoubleSeq.of(buffer, 0, n);
+    }
+
+    private static DataBlock block(double[] buffer, int n) {
+        return DataBlock.of(buffer, 0, n);
+    }
+
+    /**
+     * Returns the workspace used in the last processing. The workspace is
+     * reused by the kernel for the next series of the same length
+     *
+     * @return
+     */
+    public X11Workspace getWorkspace() {
+        return ws;
+    }
+}
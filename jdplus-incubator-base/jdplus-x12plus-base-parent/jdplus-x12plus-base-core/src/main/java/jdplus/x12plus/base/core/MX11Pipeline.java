@@ -0,0 +1,177 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.x12plus.base.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import jdplus.toolkit.base.api.timeseries.TsData;
+import jdplus.toolkit.base.api.timeseries.TsPeriod;
+import jdplus.x12plus.base.api.MX11plusSpec;
+import jdplus.x12plus.base.api.PeriodSpec;
+import jdplus.x12plus.base.api.X11plusSpec;
+
+/**
+ * X11 for multiple periods (see MX11plusSpec), organized as a pipeline of X11
+ * decompositions (one for each period). Each step decomposes the seasonally
+ * adjusted series (D11) of the previous one. The contexts of the different
+ * periods (filters...) are built once, when the pipeline is created.
+ *
+ * A pipeline is immutable and it can be shared by different threads. Many
+ * series can be processed concurrently by means of
+ * {@link #process(List, ForkJoinPool)}; the periods of a given series are
+ * always processed sequentially. The processing time of each step is provided
+ * in the results. Only the final tables (D10...D13) of the steps are retained.
+ *
+ * @author Jean Palate
+ */
+public final class MX11Pipeline {
+
+    private final MX11plusSpec spec;
+    private final X11plusSpec[] specs;
+    private final X11Context[] contexts;
+
+    public static MX11Pipeline of(MX11plusSpec spec) {
+        return new MX11Pipeline(spec);
+    }
+
+    private MX11Pipeline(MX11plusSpec spec) {
+        this.spec = spec;
+        List<PeriodSpec> pspecs = spec.getPeriodSpecs();
+        int np = pspecs.size();
+        specs = new X11plusSpec[np];
+        contexts = new X11Context[np];
+        for (int i = 0; i < np; ++i) {
+            specs[i] = spec.step(pspecs.get(i).getPeriod());
+            contexts[i] = X11Context.of(specs[i]);
+        }
+    }
+
+    public MX11plusSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Decomposes a series
+     *
+     * @param data The series
+     * @return The decomposition (one step by period)
+     * @throws X11Exception if the decomposition failed
+     */
+    public MX11Results process(TsData data) {
+        MX11Results.Builder builder = MX11Results.builder()
+                .mode(spec.getMode());
+        TsData b1 = data;
+        for (int i = 0; i < specs.length; ++i) {
+            long t0 = System.nanoTime();
+            RawX11Kernel x11 = new RawX11Kernel(specs[i], X11Table.FINALS);
+            RawX11Results decomp = x11.process(b1.getValues(), contexts[i]);
+
+            TsPeriod start = b1.getStart();
+
+            MX11Results.Step step = MX11Results.Step.builder()
+                    .period(specs[i].getPeriod())
+                    .b1(b1)
+                    .d10(TsData.of(start, decomp.getD10()))
+                    .d11(TsData.of(start, decomp.getD11()))
+                    .d12(TsData.of(start, decomp.getD12()))
+                    .d13(TsData.of(start, decomp.getD13()))
+                    .processingTime(System.nanoTime() - t0)
+                    .build();
+            builder.step(step);
+            b1 = step.getD11();
+        }
+        return builder.build();
+    }
+
+    private MX11Results tryProcess(TsData data) {
+        try {
+            return process(data);
+        } catch (X11Exception err) {
+            return null;
+        }
+    }
+
+    /**
+     * Decomposes a set of series concurrently, using a new fork-join pool. The
+     * pool is shut down at the end of the processing.
+     *
+     * @param data The series
+     * @param spec The specification used for all the series
+     * @param nthreads The parallelism of the pool
+     * @return The decompositions, in the order of the series. Failed
+     * decompositions are null
+     */
+    public static List<MX11Results> process(List<TsData> data, MX11plusSpec spec, int nthreads) {
+        if (nthreads <= 0) {
+            throw new IllegalArgumentException("MX11");
+        }
+        if (nthreads == 1 || data.size() <= 1) {
+            return of(spec).process(data, null);
+        }
+        ForkJoinPool pool = new ForkJoinPool(nthreads);
+        try {
+            return of(spec).process(data, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Decomposes a set of series concurrently. One task is submitted to the
+     * pool for each series; all the tasks share the contexts of the pipeline.
+     *
+     * @param data The series
+     * @param pool The pool. If null, the series are processed sequentially in
+     * the calling thread
+     * @return The decompositions, in the order of the series. Failed
+     * decompositions (X11Exception) are null
+     */
+    public List<MX11Results> process(List<TsData> data, ForkJoinPool pool) {
+        int n = data.size();
+        MX11Results[] rslts = new MX11Results[n];
+        if (pool == null || n <= 1) {
+            for (int i = 0; i < n; ++i) {
+                rslts[i] = tryProcess(data.get(i));
+            }
+        } else {
+            List<Callable<MX11Results>> tasks = new ArrayList<>(n);
+            for (TsData s : data) {
+                tasks.add(() -> tryProcess(s));
+            }
+            List<Future<MX11Results>> futures = pool.invokeAll(tasks);
+            try {
+                for (int i = 0; i < n; ++i) {
+                    rslts[i] = futures.get(i).get();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException rex) {
+                    throw rex;
+                }
+                throw new IllegalStateException(ex.getCause());
+            }
+        }
+        return Arrays.asList(rslts);
+    }
+}
@@ -36,6 +36,10 @@ public class MX11Results {
 
         Number period;
         TsData b1, d10, d11, d12, d13;
+        /**
+         * Processing time of the step, in nanoseconds
+         */
+        long processingTime;
     }
 
     public DecompositionMode mode;
@@ -21,8 +21,6 @@ import jdplus.toolkit.base.core.math.linearfilters.FiniteFilter;
 import jdplus.toolkit.base.core.math.linearfilters.HendersonFilters;
 import jdplus.toolkit.base.core.math.linearfilters.IFiniteFilter;
 import jdplus.toolkit.base.core.math.polynomials.Polynomial;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Factory for the creation of the asymmetric Musgrave filters
@@ -39,7 +37,13 @@ public class MusgraveFilterFactory {
         double D;
     }
 
-    private static final Map<Key, FiniteFilter[]> FILTERSTORE = new HashMap<>();
+    /**
+     * Maximum number of sets of filters kept in the store. The least recently
+     * used sets are evicted first
+     */
+    public static final int CACHE_SIZE = 64;
+
+    private static final BoundedCache<Key, FiniteFilter[]> FILTERSTORE = new BoundedCache<>(CACHE_SIZE);
     private static final Polynomial X11_H1 = Polynomial.valueOf(-0.073, 0.294, 0.522, 0.257),
             X11_H0 = Polynomial.valueOf(-0.073, 0.403, 0.670);
 
@@ -106,29 +110,58 @@ public class MusgraveFilterFactory {
     }
 
     /**
-     * Gets the Musgrave filters corresponding to the Henderson filters
+     * Gets the Musgrave filters corresponding to the Henderson filters. The
+     * filters are cached (see CACHE_SIZE); the lookups don't lock.
      *
      * @param len Length of the Henderson filter.
      * @param freq Annual frequency of the series
      * @return
      */
-    public static synchronized IFiniteFilter[] makeFiltersForHenderson(int len,
+    public static IFiniteFilter[] makeFiltersForHenderson(int len,
             int freq) {
         double r = findR(len, freq);
         double D = 4.0 / (Math.PI * r * r);
-        Key key = new Key(len, D);
-        FiniteFilter[] filters = FILTERSTORE.get(key);
-        if (filters == null) {
-            filters = new FiniteFilter[len / 2];
-            double[] h = HendersonFilters.ofLength(len).weightsToArray();
-            int l2 = len / 2;
-            for (int i = 1; i <= l2; ++i) {
-                Polynomial w = computeCoefficients(h, D, len - i);
-                filters[i - 1] = new FiniteFilter(w, -l2);
-            }
-            FILTERSTORE.put(key, filters);
+        return FILTERSTORE.get(new Key(len, D), k -> filtersForHenderson(len, D)).clone();
+    }
+
+    private static FiniteFilter[] filtersForHenderson(int len, double D) {
+        FiniteFilter[] filters = new FiniteFilter[len / 2];
+        double[] h = HendersonFilters.ofLength(len).weightsToArray();
+        int l2 = len / 2;
+        for (int i = 1; i <= l2; ++i) {
+            Polynomial w = computeCoefficients(h, D, len - i);
+            filters[i - 1] = new FiniteFilter(w, -l2);
         }
-        return filters.clone();
+        return filters;
+    }
+
+    /**
+     * @return The number of requests for Henderson filters served by the store
+     */
+    public static long getCacheHits() {
+        return FILTERSTORE.hits();
+    }
+
+    /**
+     * @return The number of requests for Henderson filters that needed the
+     * computation of new filters
+     */
+    public static long getCacheMisses() {
+        return FILTERSTORE.misses();
+    }
+
+    /**
+     * Clears the store and resets the counters
+     */
+    public static void clearCache() {
+        FILTERSTORE.clear();
+    }
+
+    /**
+     * @return The number of sets of filters in the store
+     */
+    static int getCacheSize() {
+        return FILTERSTORE.size();
     }
 
     /**
@@ -17,6 +17,8 @@
 package jdplus.x12plus.base.core;
 
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 import jdplus.toolkit.base.core.math.linearfilters.FiltersToolkit;
 import jdplus.toolkit.base.api.data.DoubleSeq;
 import jdplus.x12plus.base.api.X11SeasonalFilterSpec;
@@ -29,6 +31,7 @@ import jdplus.x12plus.base.api.X11plusSpec;
 public class RawX11Kernel {
     
     private final X11plusSpec spec;
+    private final Set<X11Table> tables;
 
 //    private X11AStep astep;
     private X11BStep bstep;
@@ -44,6 +47,20 @@ public class RawX11Kernel {
     
     public RawX11Kernel(X11plusSpec spec){
         this.spec=spec;
+        this.tables=EnumSet.allOf(X11Table.class);
+    }
+
+    /**
+     * Kernel that only retains some tables in its results. The other tables
+     * are null and the intermediate steps are released at the end of the
+     * processing (getBstep()... return null)
+     * @param spec
+     * @param tables The retained tables
+     */
+    public RawX11Kernel(X11plusSpec spec, Set<X11Table> tables){
+        this.spec=spec;
+        this.tables=EnumSet.noneOf(X11Table.class);
+        this.tables.addAll(tables);
     }
 
     public RawX11Results process(DoubleSeq data) {
@@ -63,46 +80,54 @@ public class RawX11Kernel {
         dstep = new X11DStep();
         dstep.process(data, context.remove(data, cstep.getC20()), context);
 
-        return RawX11Results.builder()
+        RawX11Results rslt = RawX11Results.builder()
                 .mode(context.getMode())
-                .b1(bstep.getB1())
-                .b2(bstep.getB2())
-                .b3(bstep.getB3())
-                .b4(bstep.getB4())
-                .b5(bstep.getB5())
-                .b6(bstep.getB6())
-                .b7(bstep.getB7())
-                .b8(bstep.getB8())
-                .b9(bstep.getB9())
-                .b10(bstep.getB10())
-                .b11(bstep.getB11())
-                .b13(bstep.getB13())
-                .b17(bstep.getB17())
-                .b20(bstep.getB20())
-                .c1(cstep.getC1())
-                .c2(cstep.getC2())
-                .c4(cstep.getC4())
-                .c5(cstep.getC5())
-                .c6(cstep.getC6())
-                .c7(cstep.getC7())
-                .c9(cstep.getC9())
-                .c10(cstep.getC10())
-                .c11(cstep.getC11())
-                .c13(cstep.getC13())
-                .c17(cstep.getC17())
-                .c20(cstep.getC20())
-                .d1(dstep.getD1())
-                .d2(dstep.getD2())
-                .d4(dstep.getD4())
-                .d5(dstep.getD5())
-                .d6(dstep.getD6())
-                .d7(dstep.getD7())
-                .d8(dstep.getD8())
-                .d10(dstep.getD10())
-                .d11(dstep.getD11())
-                .d12(dstep.getD12())
-                .d13(dstep.getD13())
+                .b1(select(X11Table.B1, bstep.getB1()))
+                .b2(select(X11Table.B2, bstep.getB2()))
+                .b3(select(X11Table.B3, bstep.getB3()))
+                .b4(select(X11Table.B4, bstep.getB4()))
+                .b5(select(X11Table.B5, bstep.getB5()))
+                .b6(select(X11Table.B6, bstep.getB6()))
+                .b7(select(X11Table.B7, bstep.getB7()))
+                .b8(select(X11Table.B8, bstep.getB8()))
+                .b9(select(X11Table.B9, bstep.getB9()))
+                .b10(select(X11Table.B10, bstep.getB10()))
+                .b11(select(X11Table.B11, bstep.getB11()))
+                .b13(select(X11Table.B13, bstep.getB13()))
+                .b17(select(X11Table.B17, bstep.getB17()))
+                .b20(select(X11Table.B20, bstep.getB20()))
+                .c1(select(X11Table.C1, cstep.getC1()))
+                .c2(select(X11Table.C2, cstep.getC2()))
+                .c4(select(X11Table.C4, cstep.getC4()))
+                .c5(select(X11Table.C5, cstep.getC5()))
+                .c6(select(X11Table.C6, cstep.getC6()))
+                .c7(select(X11Table.C7, cstep.getC7()))
+                .c9(select(X11Table.C9, cstep.getC9()))
+                .c10(select(X11Table.C10, cstep.getC10()))
+                .c11(select(X11Table.C11, cstep.getC11()))
+                .c13(select(X11Table.C13, cstep.getC13()))
+                .c17(select(X11Table.C17, cstep.getC17()))
+                .c20(select(X11Table.C20, cstep.getC20()))
+                .d1(select(X11Table.D1, dstep.getD1()))
+                .d2(select(X11Table.D2, dstep.getD2()))
+                .d4(select(X11Table.D4, dstep.getD4()))
+                .d5(select(X11Table.D5, dstep.getD5()))
+                .d6(select(X11Table.D6, dstep.getD6()))
+                .d7(select(X11Table.D7, dstep.getD7()))
+                .d8(select(X11Table.D8, dstep.getD8()))
+                .d10(select(X11Table.D10, dstep.getD10()))
+                .d11(select(X11Table.D11, dstep.getD11()))
+                .d12(select(X11Table.D12, dstep.getD12()))
+                .d13(select(X11Table.D13, dstep.getD13()))
                 .build();
+        if (tables.size() < X11Table.values().length) {
+            clear();
+        }
+        return rslt;
+    }
+
+    private DoubleSeq select(X11Table table, DoubleSeq s) {
+        return tables.contains(table) ? s : null;
     }
 
     /**
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.x12plus.base.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.toolkit.base.core.data.DataBlock;
+import jdplus.toolkit.base.core.math.linearfilters.IFiniteFilter;
+import jdplus.toolkit.base.core.math.linearfilters.SymmetricFilter;
+
+/**
+ * Compiled form of a seasonal filter for a fractional period (see
+ * X11SeasonalFiltersFactory.AnyFilter).
+ *
+ * Each output is a sparse linear combination of the inputs: the interpolation
+ * of the inputs at fractional positions is fused with the weights of the
+ * symmetric/end points filters. The offsets and the weights only depend on
+ * the distance to the beginning/end of the series. All the central outputs
+ * share the same stencil; the first and last outputs use their own ones
+ * (identical stencils are shared). The plan doesn't depend on the length of
+ * the series.
+ *
+ * @author Jean Palate
+ */
+final class SeasonalFilterPlan {
+
+    private static final double EPS = 1e-9;
+
+    /**
+     * Sparse row: output(i) = sum(weights[k] * input(i + offsets[k]))
+     */
+    private static final class Stencil {
+
+        final int[] offsets;
+        final double[] weights;
+        private final int hash;
+
+        Stencil(int[] offsets, double[] weights) {
+            this.offsets = offsets;
+            this.weights = weights;
+            this.hash = 31 * Arrays.hashCode(offsets) + Arrays.hashCode(weights);
+        }
+
+        double apply(double[] in, int i) {
+            double s = 0;
+            for (int k = 0; k < offsets.length; ++k) {
+                s += weights[k] * in[i + offsets[k]];
+            }
+            return s;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Stencil other && Arrays.equals(offsets, other.offsets)
+                    && Arrays.equals(weights, other.weights);
+        }
+    }
+
+    private final Stencil central;
+    // head[i]: i-th output; tail[r]: output at distance r of the end
+    private final Stencil[] head, tail;
+
+    /**
+     * Compiles a seasonal filter
+     *
+     * @param period The (fractional) period
+     * @param sfilter The symmetric filter (applied on the cycle-subseries)
+     * @param endpoints The end points filters
+     * @return
+     */
+    static SeasonalFilterPlan of(double period, SymmetricFilter sfilter, IFiniteFilter[] endpoints) {
+        return new SeasonalFilterPlan(period, sfilter, endpoints);
+    }
+
+    private SeasonalFilterPlan(double period, SymmetricFilter sfilter, IFiniteFilter[] endpoints) {
+        int n = sfilter.length(), m = n / 2;
+        double t = m * period;
+        int l;
+        if ((t - (int) t) < EPS) {
+            l = m;
+        } else {
+            l = 1 + m;
+        }
+        int nends = 0;
+        while ((int) (nends / period) < l) {
+            ++nends;
+        }
+        // weights of the filters on the buffer of the (interpolated) cycle-subseries
+        double[] gcentral = probe(n, cin -> sfilter.apply(cin));
+        double[][] ghead = new double[m][], gtail = new double[m][];
+        for (int c = 0; c < m; ++c) {
+            int k = c + 1, cc = c;
+            ghead[c] = probe(n, cin -> endpoints[m - k].apply(cin.reverse().range(m - cc, n)));
+            gtail[c] = probe(n, cin -> endpoints[m - k].apply(cin.range(m - cc, n)));
+        }
+
+        Map<Stencil, Stencil> stencils = new HashMap<>();
+        central = stencil(period, n, m, Integer.MAX_VALUE, Integer.MAX_VALUE, gcentral, stencils);
+        head = new Stencil[nends];
+        tail = new Stencil[nends];
+        for (int i = 0; i < nends; ++i) {
+            // number of complete cycles before (head) or after (tail) the output
+            int c = (int) (i / period);
+            head[i] = stencil(period, n, c, i, Integer.MAX_VALUE, c < m ? ghead[c] : gcentral, stencils);
+            tail[i] = stencil(period, n, n - c - 1, Integer.MAX_VALUE, i, c < m ? gtail[c] : gcentral, stencils);
+        }
+    }
+
+    private static double[] probe(int n, ToDoubleFunction<DataBlock> fn) {
+        DataBlock cin = DataBlock.make(n);
+        double[] g = new double[n];
+        for (int j = 0; j < n; ++j) {
+            cin.set(0);
+            cin.set(j, 1);
+            g[j] = fn.applyAsDouble(cin);
+        }
+        return g;
+    }
+
+    /**
+     * Builds the stencil of an output
+     *
+     * @param w Position of the current observation in the buffer
+     * @param nbefore Number of observations before the current one (MAX_VALUE
+     * if not limited)
+     * @param nafter Number of observations after the current one (MAX_VALUE if
+     * not limited)
+     * @param g Weights of the filter on the buffer
+     * @param stencils Existing stencils
+     * @return
+     */
+    private static Stencil stencil(double period, int n, int w, int nbefore, int nafter, double[] g, Map<Stencil, Stencil> stencils) {
+        int[] offsets = new int[2 * n];
+        double[] weights = new double[2 * n];
+        int k = 0;
+        if (g[w] != 0) {
+            offsets[k] = 0;
+            weights[k++] = g[w];
+        }
+        double dcur = period;
+        for (int j = w + 1; j < n; ++j, dcur += period) {
+            int jcur = (int) dcur;
+            double p0 = dcur - jcur, p1 = 1 - p0;
+            if (g[j] == 0) {
+                continue;
+            }
+            if (p0 > EPS && jcur < nafter) {
+                offsets[k] = jcur;
+                weights[k++] = g[j] * p1;
+                offsets[k] = jcur + 1;
+                weights[k++] = g[j] * p0;
+            } else {
+                offsets[k] = jcur;
+                weights[k++] = nafter == Integer.MAX_VALUE ? g[j] : g[j] * p1;
+            }
+        }
+        dcur = period;
+        for (int j = w - 1; j >= 0; --j, dcur += period) {
+            int jcur = (int) dcur;
+            double p0 = dcur - jcur, p1 = 1 - p0;
+            if (g[j] == 0) {
+                continue;
+            }
+            if (p0 > EPS && jcur < nbefore) {
+                offsets[k] = -jcur;
+                weights[k++] = g[j] * p1;
+                offsets[k] = -jcur - 1;
+                weights[k++] = g[j] * p0;
+            } else {
+                offsets[k] = -jcur;
+                weights[k++] = g[j];
+            }
+        }
+        Stencil s = new Stencil(Arrays.copyOf(offsets, k), Arrays.copyOf(weights, k));
+        Stencil cur = stencils.putIfAbsent(s, s);
+        return cur == null ? s : cur;
+    }
+
+    /**
+     * Applies the filter
+     *
+     * @param in The input series
+     * @param len The length of the input series (in may be longer)
+     * @param out The filtered series (same length as the input)
+     */
+    void apply(double[] in, int len, double[] out) {
+        int nhead = Math.min(head.length, len);
+        for (int i = 0; i < nhead; ++i) {
+            out[i] = head[i].apply(in, i);
+        }
+        int ntail = Math.max(nhead, len - tail.length);
+        for (int i = nhead; i < ntail; ++i) {
+            out[i] = central.apply(in, i);
+        }
+        for (int i = ntail; i < len; ++i) {
+            out[i] = tail[len - 1 - i].apply(in, i);
+        }
+    }
+
+    DoubleSeq apply(DoubleSeq in) {
+        double[] x = new double[in.length()];
+        apply(in.toArray(), x.length, x);
+        return DoubleSeq.of(x);
+    }
+}
@@ -24,6 +24,8 @@ import jdplus.toolkit.base.core.math.linearfilters.LocalPolynomialFilters;
 import jdplus.toolkit.base.api.math.linearfilters.LocalPolynomialFilterSpec;
 import jdplus.toolkit.base.core.math.linearfilters.IQuasiSymmetricFiltering;
 import jdplus.toolkit.base.core.math.linearfilters.ISymmetricFiltering;
+import jdplus.toolkit.base.api.math.linearfilters.FilterSpec;
+import jdplus.x12plus.base.api.SeasonalFilterSpec;
 import jdplus.x12plus.base.api.X11plusSpec;
 
 /**
@@ -43,7 +45,54 @@ public class X11Context {
     IQuasiSymmetricFiltering trendFiltering;
     ISymmetricFiltering initialSeasonalFiltering, finalSeasonalFiltering;
     
-    public static X11Context of(X11plusSpec spec){
+    /**
+     * Maximum number of contexts kept in the store. The least recently used
+     * contexts are evicted first
+     */
+    public static final int CACHE_SIZE = 32;
+
+    /**
+     * Items of the specification used in the context (the horizons of the
+     * forecasts/backcasts are not relevant). The context doesn't depend on the
+     * length of the series
+     */
+    @lombok.Value
+    private static class Key {
+
+        DecompositionMode mode;
+        Number period;
+        double lowerSigma, upperSigma;
+        FilterSpec trendFilter;
+        SeasonalFilterSpec initialSeasonalFilter, finalSeasonalFilter;
+
+        static Key of(X11plusSpec spec) {
+            return new Key(spec.getMode(), spec.getPeriod(), spec.getLowerSigma(), spec.getUpperSigma(),
+                    spec.getTrendFilter(), spec.getInitialSeasonalFilter(), spec.getFinalSeasonalFilter());
+        }
+    }
+
+    private static final BoundedCache<Key, X11Context> CONTEXTSTORE = new BoundedCache<>(CACHE_SIZE);
+
+    /**
+     * Gets the context corresponding to a specification. The contexts
+     * (immutable) are cached (see CACHE_SIZE), so that the filters are built
+     * only once for series processed with the same specification; the lookups
+     * don't lock.
+     *
+     * @param spec
+     * @return
+     */
+    public static X11Context of(X11plusSpec spec) {
+        return CONTEXTSTORE.get(Key.of(spec), k -> create(spec));
+    }
+
+    /**
+     * Creates a new context, without using the store
+     *
+     * @param spec
+     * @return
+     */
+    public static X11Context create(X11plusSpec spec) {
         return X11Context.builder()
                 .mode(spec.getMode())
                 .period(spec.getPeriod())
@@ -55,6 +104,35 @@ public class X11Context {
                 .build();
     }
 
+    /**
+     * @return The number of requests for contexts served by the store
+     */
+    public static long getCacheHits() {
+        return CONTEXTSTORE.hits();
+    }
+
+    /**
+     * @return The number of requests for contexts that needed the creation of
+     * new filters
+     */
+    public static long getCacheMisses() {
+        return CONTEXTSTORE.misses();
+    }
+
+    /**
+     * Clears the store and resets the counters
+     */
+    public static void clearCache() {
+        CONTEXTSTORE.clear();
+    }
+
+    /**
+     * @return The number of contexts in the store
+     */
+    static int getCacheSize() {
+        return CONTEXTSTORE.size();
+    }
+
     public static Builder builder() {
         Builder builder = new Builder();
         builder.mode = DecompositionMode.Multiplicative;
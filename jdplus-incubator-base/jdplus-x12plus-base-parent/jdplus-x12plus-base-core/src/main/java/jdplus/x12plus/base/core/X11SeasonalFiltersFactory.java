@@ -16,8 +16,8 @@
  */
 package jdplus.x12plus.base.core;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import jdplus.toolkit.base.core.math.linearfilters.FiltersToolkit;
 import jdplus.x12plus.base.api.SeasonalFilterOption;
@@ -41,29 +41,43 @@ import jdplus.x12plus.base.api.X11SeasonalFilterSpec;
 @lombok.experimental.UtilityClass
 public class X11SeasonalFiltersFactory {
 
-    private final Map< Class, Function<SeasonalFilterSpec, ISymmetricFiltering>> map = new HashMap<>();
+    // lookups don't lock; the filters are built outside the map
+    private final Map< Class, Function<SeasonalFilterSpec, ISymmetricFiltering>> map = new ConcurrentHashMap<>();
 
     public <S extends SeasonalFilterSpec> void register(Class<S> spec, Function<S, ISymmetricFiltering> fn) {
-        synchronized (map) {
-            if (fn != null) {
-                map.put(spec, (Function<SeasonalFilterSpec, ISymmetricFiltering>) fn);
-            }
+        if (fn != null) {
+            map.put(spec, (Function<SeasonalFilterSpec, ISymmetricFiltering>) fn);
         }
     }
 
     public <S extends FilterSpec> void unregister(Class<S> spec) {
-        synchronized (map) {
-            map.remove(spec);
-        }
+        map.remove(spec);
     }
 
     public ISymmetricFiltering of(SeasonalFilterSpec spec) {
-        synchronized (map) {
-            Function<SeasonalFilterSpec, ISymmetricFiltering> fn = map.get(spec.getClass());
-            if (fn == null) {
-                throw new LinearFilterException("Filter spec not registered");
-            }
-            return fn.apply(spec);
+        Function<SeasonalFilterSpec, ISymmetricFiltering> fn = map.get(spec.getClass());
+        if (fn == null) {
+            throw new LinearFilterException("Filter spec not registered");
+        }
+        return fn.apply(spec);
+    }
+
+    /**
+     * Applies a seasonal filter in a given buffer. The filters created by this
+     * factory don't allocate any intermediate result
+     *
+     * @param filter The seasonal filter
+     * @param in The input series
+     * @param len The length of the input series (in may be longer)
+     * @param out The filtered series
+     */
+    public void apply(ISymmetricFiltering filter, double[] in, int len, double[] out) {
+        if (filter instanceof AnyFilter af) {
+            af.plan.apply(in, len, out);
+        } else if (filter instanceof DefaultFilter df) {
+            df.apply(DataBlock.of(in, 0, len), DataBlock.of(out, 0, len));
+        } else {
+            filter.process(DoubleSeq.of(in, 0, len)).copyTo(out, 0);
         }
     }
 
@@ -117,8 +131,14 @@ public class X11SeasonalFiltersFactory {
         @Override
         public DoubleSeq process(DoubleSeq in) {
             double[] x = new double[in.length()];
-            DataBlock out = DataBlock.of(x);
-            DataBlock input = DataBlock.of(in);
+            apply(DataBlock.of(in), DataBlock.of(x));
+            return DoubleSeq.of(x);
+        }
+
+        void apply(DataBlock input, DataBlock out) {
+            if (endpoints == null) {
+                out.set(0);
+            }
             int n = sfilter.length() / 2;
             for (int i = 0; i < period; ++i) {
                 DataBlock cin = input.extract(i, -1, period);
@@ -128,7 +148,6 @@ public class X11SeasonalFiltersFactory {
                     endpoints.process(cin, cout);
                 }
             }
-            return DoubleSeq.of(x);
         }
 
         @Override
@@ -147,117 +166,18 @@ public class X11SeasonalFiltersFactory {
         private final SymmetricFilter sfilter;
         private final IFiniteFilter[] endpoints;
         private final double period;
+        private final SeasonalFilterPlan plan;
 
         AnyFilter(final double period, final SymmetricFilter sfilter, final IFiniteFilter[] endpoints) {
             this.period = period;
             this.sfilter = sfilter;
             this.endpoints = endpoints;
+            this.plan = SeasonalFilterPlan.of(period, sfilter, endpoints);
         }
 
         @Override
         public DoubleSeq process(DoubleSeq in) {
-            double[] x = new double[in.length()];
-            int n = sfilter.length(), m = n / 2;
-            DataBlock cin = DataBlock.make(n);
-            double t = m * period;
-            int l;
-            if ((t - (int) t) < 1e-9) {
-                l = m;
-            } else {
-                l = 1 + m;
-            }
-            for (int i = 0; i < x.length; ++i) {
-                cin.set(0);
-                int c = (int) (i / period);
-                int q = (int) ((x.length - 1 - i) / period); // last possible item
-                if (c >= l && q >= l) {
-                    // fill the input buffer;
-                    cin.set(m, in.get(i));
-                    double dcur = period;
-                    for (int j = m + 1; j < n; ++j, dcur += period) {
-                        int jcur = (int) dcur;
-                        double p0 = dcur - jcur, p1 = 1 - p0;
-                        if (p0 > 1e-9) {
-                            cin.set(j, p1 * in.get(i + jcur) + p0 * in.get(i + jcur + 1));
-                        } else {
-                            cin.set(j, in.get(i + jcur));
-                        }
-                    }
-                    dcur = period;
-                    for (int j = m - 1; j >= 0; --j, dcur += period) {
-                        int jcur = (int) dcur;
-                        double p0 = dcur - jcur, p1 = 1 - p0;
-                        if (p0 > 1e-9) {
-                            cin.set(j, p1 * in.get(i - jcur) + p0 * in.get(i - jcur - 1));
-                        } else {
-                            cin.set(j, in.get(i - jcur));
-                        }
-                    }
-                    x[i] = sfilter.apply(cin);
-                } else if (c < l) {
-                    int w = c;
-                    // fill the input buffer;
-                    cin.set(w, in.get(i));
-                    double dcur = period;
-                    for (int j = w + 1; j < n; ++j, dcur += period) {
-                        int jcur = (int) dcur;
-                        double p0 = dcur - jcur, p1 = 1 - p0;
-                        if (p0 > 1e-9) {
-                            cin.set(j, p1 * in.get(i + jcur) + p0 * in.get(i + jcur + 1));
-                        } else {
-                            cin.set(j, in.get(i + jcur));
-                        }
-                    }
-                    dcur = period;
-                    for (int j = w - 1; j >= 0; --j, dcur += period) {
-                        int jcur = (int) dcur;
-                        double p0 = dcur - jcur, p1 = 1 - p0;
-                        if (p0 > 1e-9 && i - jcur - 1 >= 0) {
-                            cin.set(j, p1 * in.get(i - jcur) + p0 * in.get(i - jcur - 1));
-                        } else {
-                            cin.set(j, in.get(i - jcur));
-                        }
-                    }
-                    if (c < m) {
-                        int k = c + 1;
-                        x[i] = endpoints[m - k].apply(cin.reverse().range(m - c, n));
-                    } else {
-                        x[i] = sfilter.apply(cin);
-                    }
-                } else {
-                    int w = n - q - 1;
-                    // fill the input buffer;
-                    cin.set(w, in.get(i));
-                    double dcur = period;
-                    for (int j = w + 1; j < n; ++j, dcur += period) {
-                        int jcur = (int) dcur;
-                        double p0 = dcur - jcur, p1 = 1 - p0;
-                        if (p0 > 1e-9 && i + jcur + 1 < in.length()) {
-                            cin.set(j, p1 * in.get(i + jcur) + p0 * in.get(i + jcur + 1));
-                        } else {
-                            cin.set(j, p1 * in.get(i + jcur));
-                        }
-                    }
-                    dcur = period;
-                    for (int j = w - 1; j >= 0; --j, dcur += period) {
-                        int jcur = (int) dcur;
-                        double p0 = dcur - jcur, p1 = 1 - p0;
-                        if (p0 > 1e-9) {
-                            cin.set(j, p1 * in.get(i - jcur) + p0 * in.get(i - jcur - 1));
-                        } else {
-                            cin.set(j, in.get(i - jcur));
-                        }
-                    }
-                    if (q < m) {
-                        int k = q + 1;
-                        x[i] = endpoints[m - k].apply(cin.range(m - q, n));
-                    } else {
-                        x[i] = sfilter.apply(cin);
-                    }
-
-                }
-            }
-            return DoubleSeq.of(x);
+            return plan.apply(in);
         }
 
         @Override
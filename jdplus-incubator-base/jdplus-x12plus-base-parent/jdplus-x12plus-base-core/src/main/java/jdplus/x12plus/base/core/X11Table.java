@@ -0,0 +1,39 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.x12plus.base.core;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Tables of the X11 decomposition that can be retained in the results (see
+ * RawX11Results)
+ *
+ * @author Jean Palate
+ */
+public enum X11Table {
+    B1, B2, B3, B4, B5, B6, B7, B8, B9, B10, B11, B13, B17, B20,
+    C1, C2, C4, C5, C6, C7, C9, C10, C11, C13, C17, C20,
+    D1, D2, D4, D5, D6, D7, D8, D10, D11, D12, D13;
+
+    /**
+     * Final components: seasonal (D10), seasonally adjusted series (D11),
+     * trend (D12) and irregular (D13)
+     */
+    public static final Set<X11Table> FINALS = Collections.unmodifiableSet(EnumSet.of(D10, D11, D12, D13));
+}
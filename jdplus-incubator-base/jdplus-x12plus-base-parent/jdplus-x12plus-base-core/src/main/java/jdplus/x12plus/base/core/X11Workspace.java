@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.x12plus.base.core;
+
+/**
+ * Working buffers used by FusedX11Kernel. The tables of the B, C and D steps
+ * are computed in a fixed set of buffers, which are reused from one step to
+ * the other. A workspace is defined for a given length of the series and it
+ * can be reused for any series of the same length.
+ *
+ * The workspace is not thread-safe: it should be used by one kernel at a
+ * time.
+ *
+ * @author Jean Palate
+ */
+public final class X11Workspace {
+
+    private final int n;
+
+    // Buffers of the kernel (length n). Shorter tables (without the ends
+    // dropped by the centered moving average) use the beginning of the buffers
+    // x1: input of the step; x2: centered moving average; x3: SI ratios
+    // sf: seasonal filter; tmp: normalization, residuals...; s: seasonal factors
+    // corr: corrections of the extreme values; g: corrected SI ratios
+    // x6: seasonally adjusted series; x8: SI ratios (final seasonal filter)
+    // x11: seasonally adjusted series (final); f: correction factors
+    final double[] x1, x2, x3, sf, tmp, s, corr, g, x6, x8, x11, f;
+
+    /**
+     * Creates a new workspace
+     *
+     * @param n The length of the series
+     * @return
+     */
+    public static X11Workspace of(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("X11");
+        }
+        return new X11Workspace(n);
+    }
+
+    private X11Workspace(int n) {
+        this.n = n;
+        x1 = new double[n];
+        x2 = new double[n];
+        x3 = new double[n];
+        sf = new double[n];
+        tmp = new double[n];
+        s = new double[n];
+        corr = new double[n];
+        g = new double[n];
+        x6 = new double[n];
+        x8 = new double[n];
+        x11 = new double[n];
+        f = new double[n];
+    }
+
+    /**
+     * Checks that the workspace can be used for a given series
+     *
+     * @param n The length of the series
+     * @return
+     */
+    public boolean isCompatible(int n) {
+        return this.n == n;
+    }
+
+    public int getLength() {
+        return n;
+    }
+}
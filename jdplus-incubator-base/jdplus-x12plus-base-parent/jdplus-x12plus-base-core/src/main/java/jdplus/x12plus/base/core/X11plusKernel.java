@@ -16,6 +16,8 @@
  */
 package jdplus.x12plus.base.core;
 
+import java.util.EnumSet;
+import java.util.Set;
 import jdplus.toolkit.base.api.timeseries.TsData;
 import jdplus.x12plus.base.api.SeasonalFilterOption;
 import jdplus.x12plus.base.api.X11plusSpec;
@@ -27,22 +29,35 @@ import jdplus.x12plus.base.api.X11plusSpec;
 public class X11plusKernel {
 
     private final X11plusSpec spec;
+    private final Set<X11Table> tables;
 
-    private X11plusKernel(X11plusSpec spec) {
+    private X11plusKernel(X11plusSpec spec, Set<X11Table> tables) {
         this.spec = spec;
+        this.tables = tables;
     }
 
     public static X11plusKernel of(X11plusSpec spec) {
-        return new X11plusKernel(spec);
+        return new X11plusKernel(spec, EnumSet.allOf(X11Table.class));
+    }
+
+    /**
+     * Kernel that only retains some tables in its results
+     *
+     * @param spec
+     * @param tables The retained tables. The other tables are null
+     * @return
+     */
+    public static X11plusKernel of(X11plusSpec spec, Set<X11Table> tables) {
+        return new X11plusKernel(spec, tables);
     }
 
     public X11plusResults process(TsData s) {
         if (spec == null) {
             boolean pos = s.getValues().allMatch(x->x>0);
             X11plusSpec nspec = X11plusSpec.createDefault(pos,s.getAnnualFrequency(), SeasonalFilterOption.S3X5);
-            return X11Toolkit.process(s, nspec);
+            return X11Toolkit.process(s, nspec, tables);
         } else {
-            return X11Toolkit.process(s, spec);
+            return X11Toolkit.process(s, spec, tables);
         }
     }
 }
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.x12plus.base.core.x12;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import jdplus.toolkit.base.api.timeseries.TsData;
+import jdplus.toolkit.base.api.timeseries.regression.ModellingContext;
+import jdplus.x12plus.base.api.X12plusSpec;
+
+/**
+ * Concurrent processing of a panel of series by X12plus. The series are read
+ * from a stream of items (id, series, specification) and they are processed
+ * on an executor (a bounded fork/join pool by default). The number of series
+ * in progress is limited: the reading of the stream is suspended as long as
+ * that limit is reached, so that the memory used by the processing doesn't
+ * depend on the size of the panel.
+ *
+ * Each result (or a selected output of it) is sent to a sink as soon as the
+ * series has been processed; the results are not retained by the processor.
+ * The sink is called concurrently by the threads of the executor, in the
+ * order of completion of the series.
+ *
+ * The specifications (immutable) are shared by the tasks, as well as the
+ * caches of the X11 filters. The kernels (which are not thread-safe) are
+ * created for each series.
+ *
+ * @author Jean Palate
+ */
+public final class X12plusBatchProcessor {
+
+    /**
+     * Identified series
+     */
+    @lombok.Value(staticConstructor = "of")
+    public static class Item {
+
+        String id;
+        TsData series;
+        X12plusSpec spec;
+    }
+
+    /**
+     * Receiver of the outputs of the processing. The sink must be thread-safe
+     *
+     * @param <T> The type of the outputs
+     */
+    @FunctionalInterface
+    public static interface Sink<T> {
+
+        /**
+         *
+         * @param id The identifier of the series
+         * @param output The output of the processing. Null if the processing
+         * failed
+         */
+        void accept(String id, T output);
+    }
+
+    public static final int DEF_MAX_PENDING = 64;
+
+    private final ModellingContext context;
+    private final Executor executor;
+    private final int maxPending;
+    private final Set<X12plusDiagnostics.Type> diagnostics;
+
+    /**
+     * Processor using the common fork/join pool. The calling thread is blocked
+     * while the number of pending series is at its maximum: the processor
+     * must not be used from a task running in the common pool (that worker
+     * would be blocked). Use a dedicated executor in that case.
+     *
+     * @param context The modelling context shared by all the series. May be
+     * null
+     * @return
+     */
+    public static X12plusBatchProcessor of(ModellingContext context) {
+        return new X12plusBatchProcessor(context, ForkJoinPool.commonPool(), DEF_MAX_PENDING, X12plusDiagnostics.ALL);
+    }
+
+    /**
+     *
+     * @param context The modelling context shared by all the series. May be
+     * null
+     * @param executor The executor used for the processing (fork/join pool,
+     * executor of virtual threads...). If null, the series are processed
+     * sequentially in the calling thread
+     * @param maxPending The maximum number of series submitted to the executor
+     * and not yet completed
+     * @return
+     */
+    public static X12plusBatchProcessor of(ModellingContext context, Executor executor, int maxPending) {
+        return of(context, executor, maxPending, X12plusDiagnostics.ALL);
+    }
+
+    /**
+     *
+     * @param context The modelling context shared by all the series. May be
+     * null
+     * @param executor The executor used for the processing. If null, the
+     * series are processed sequentially in the calling thread
+     * @param maxPending The maximum number of series submitted to the executor
+     * and not yet completed
+     * @param diagnostics The diagnostics available in the results (computed on
+     * their first access). X12plusDiagnostics.NONE for no diagnostics
+     * @return
+     */
+    public static X12plusBatchProcessor of(ModellingContext context, Executor executor, int maxPending, Set<X12plusDiagnostics.Type> diagnostics) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("X12");
+        }
+        return new X12plusBatchProcessor(context, executor, maxPending, diagnostics);
+    }
+
+    private X12plusBatchProcessor(ModellingContext context, Executor executor, int maxPending, Set<X12plusDiagnostics.Type> diagnostics) {
+        this.context = context;
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Processes a panel of series with a new fork/join pool. The pool is shut
+     * down at the end of the processing.
+     *
+     * @param items The series
+     * @param context The modelling context. May be null
+     * @param nthreads The parallelism of the pool
+     * @param sink The receiver of the results
+     */
+    public static void process(Stream<Item> items, ModellingContext context, int nthreads, Sink<X12plusResults> sink) {
+        if (nthreads <= 0) {
+            throw new IllegalArgumentException("X12");
+        }
+        if (nthreads == 1) {
+            of(context, null, 1).process(items, sink);
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(nthreads);
+        try {
+            of(context, pool, DEF_MAX_PENDING).process(items, sink);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Processes a panel of series. The method returns when all the series have
+     * been processed and sent to the sink.
+     *
+     * @param items The series
+     * @param sink The receiver of the results
+     */
+    public void process(Stream<Item> items, Sink<X12plusResults> sink) {
+        process(items, Function.identity(), sink);
+    }
+
+    /**
+     * Processes a panel of series and sends selected outputs to a sink. Only
+     * the outputs are kept until they are consumed by the sink. The method
+     * returns when all the series have been processed.
+     *
+     * @param <T> The type of the outputs
+     * @param items The series
+     * @param selector Selection of the output in the results (not called when
+     * the processing failed)
+     * @param sink The receiver of the outputs. The series whose processing
+     * failed (including invalid specifications) are sent with a null output
+     * @throws RuntimeException The first exception thrown by the selector or
+     * by the sink (the remaining series are still processed)
+     */
+    public <T> void process(Stream<Item> items, Function<X12plusResults, T> selector, Sink<T> sink) {
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+        if (executor == null) {
+            items.sequential().forEachOrdered(item -> run(item, selector, sink, error));
+        } else {
+            Semaphore pending = new Semaphore(maxPending);
+            try {
+                Iterator<Item> iter = items.iterator();
+                while (iter.hasNext()) {
+                    Item item = iter.next();
+                    pending.acquire();
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                run(item, selector, sink, error);
+                            } finally {
+                                pending.release();
+                            }
+                        });
+                    } catch (RejectedExecutionException ex) {
+                        pending.release();
+                        throw ex;
+                    }
+                }
+                // waits for the completion of the last tasks
+                pending.acquire(maxPending);
+                pending.release(maxPending);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+        }
+        RuntimeException err = error.get();
+        if (err != null) {
+            throw err;
+        }
+    }
+
+    private <T> void run(Item item, Function<X12plusResults, T> selector, Sink<T> sink, AtomicReference<RuntimeException> error) {
+        X12plusResults rslt;
+        try {
+            rslt = X12plusKernel.of(item.getSpec(), context, diagnostics).process(item.getSeries(), null);
+        } catch (RuntimeException ex) {
+            // invalid specification or unexpected error of the processing:
+            // the series is considered as failed
+            rslt = null;
+        }
+        try {
+            sink.accept(item.getId(), rslt == null ? null : selector.apply(rslt));
+        } catch (RuntimeException ex) {
+            error.compareAndSet(null, ex);
+        }
+    }
+}
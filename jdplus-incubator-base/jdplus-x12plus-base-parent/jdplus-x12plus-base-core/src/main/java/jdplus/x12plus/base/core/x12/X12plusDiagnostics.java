@@ -16,6 +16,9 @@
  */
 package jdplus.x12plus.base.core.x12;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
 import jdplus.sa.base.api.SeriesDecomposition;
 import jdplus.sa.base.api.StationaryVarianceDecomposition;
 import jdplus.toolkit.base.api.timeseries.TsData;
@@ -25,26 +28,84 @@ import jdplus.sa.base.core.diagnostics.GenericSaTests;
 import jdplus.toolkit.base.api.timeseries.TsDomain;
 import jdplus.x12plus.base.core.X11plusResults;
 
-@lombok.Value
-@lombok.AllArgsConstructor(access = lombok.AccessLevel.PRIVATE)
-public class X12plusDiagnostics {
+/**
+ * Diagnostics of an X12plus estimation. The diagnostics are computed lazily,
+ * on their first access, and only the selected ones are available (the other
+ * ones are null). The computation is thread-safe.
+ *
+ * @author Jean Palate
+ */
+public final class X12plusDiagnostics {
+
+    public static enum Type {
+        /**
+         * Decomposition of the variance of the stationary series
+         */
+        VarianceDecomposition,
+        /**
+         * Generic tests on the components (residual seasonality, residual
+         * trading days, out of sample tests...)
+         */
+        GenericTests
+    }
+
+    public static final Set<Type> ALL = Collections.unmodifiableSet(EnumSet.allOf(Type.class));
+    public static final Set<Type> NONE = Collections.unmodifiableSet(EnumSet.noneOf(Type.class));
 
-    private StationaryVarianceDecomposition varianceDecomposition;
-    private GenericSaTests genericDiagnostics;
+    private final RegSarimaModel preprocessing;
+    private final X12plusPreadjustment preadjustment;
+    private final X11plusResults decomposition;
+    private final Set<Type> selection;
+
+    @lombok.Getter(lazy = true)
+    private final StationaryVarianceDecomposition varianceDecomposition = selection.contains(Type.VarianceDecomposition)
+            ? varDecomposition(preprocessing, decomposition) : null;
+    @lombok.Getter(lazy = true)
+    private final GenericSaTests genericDiagnostics = selection.contains(Type.GenericTests)
+            ? genericTests(preprocessing, preadjustment, decomposition) : null;
 
     public static X12plusDiagnostics of(RegSarimaModel preprocessing, X12plusPreadjustment preadj, X11plusResults xrslts, X12plusFinals finals) {
+        return new X12plusDiagnostics(preprocessing, preadj, xrslts, ALL);
+    }
+
+    /**
+     *
+     * @param preprocessing
+     * @param preadj
+     * @param xrslts
+     * @param finals
+     * @param selection The diagnostics that will be available
+     * @return
+     */
+    public static X12plusDiagnostics of(RegSarimaModel preprocessing, X12plusPreadjustment preadj, X11plusResults xrslts, X12plusFinals finals, Set<Type> selection) {
+        EnumSet<Type> types = EnumSet.noneOf(Type.class);
+        types.addAll(selection);
+        return new X12plusDiagnostics(preprocessing, preadj, xrslts, types);
+    }
+
+    private X12plusDiagnostics(RegSarimaModel preprocessing, X12plusPreadjustment preadj, X11plusResults xrslts, Set<Type> selection) {
+        this.preprocessing = preprocessing;
+        this.preadjustment = preadj;
+        this.decomposition = xrslts;
+        this.selection = selection;
+    }
+
+    public boolean isSelected(Type type) {
+        return selection.contains(type);
+    }
+
+    private static GenericSaTests genericTests(RegSarimaModel preprocessing, X12plusPreadjustment preadj, X11plusResults xrslts) {
         boolean mul = xrslts.getMode().isMultiplicative();
         TsDomain dom = xrslts.getActualDomain();
         TsData sa = TsData.fitToDomain(xrslts.getD11(), dom);
         TsData i = TsData.fitToDomain(xrslts.getD13(), dom);
-        TsData t = TsData.fitToDomain(xrslts.getD12(), dom);
         TsData si = TsData.fitToDomain(xrslts.getD8(), dom);
         TsData y = TsData.fitToDomain(xrslts.getB1(), dom);
         TsData lsa = mul ? sa.log() : sa;
         TsData li = mul ? i.log() : i;
         TsData lin = preprocessing != null ? preprocessing.linearizedSeries() : mul ? preadj.getA1().log() : preadj.getA1();
 
-        GenericSaTests gsadiags = GenericSaTests.builder()
+        return GenericSaTests.builder()
                 .mul(mul)
                 .regarima(preprocessing)
                 .lin(lin)
@@ -56,7 +117,6 @@ public class X12plusDiagnostics {
                 .lsa(lsa)
                 .lirr(li)
                 .build();
-        return new X12plusDiagnostics(varDecomposition(preprocessing, xrslts), gsadiags);
     }
 
     private static StationaryVarianceDecomposition varDecomposition(RegSarimaModel preprocessing, X11plusResults srslts) {
@@ -41,6 +41,7 @@ import jdplus.sa.base.core.diagnostics.AdvancedResidualSeasonalityDiagnosticsFac
 import jdplus.sa.base.core.diagnostics.CoherenceDiagnostics;
 import jdplus.sa.base.core.diagnostics.CoherenceDiagnosticsConfiguration;
 import jdplus.sa.base.core.diagnostics.CoherenceDiagnosticsFactory;
+import jdplus.sa.base.core.diagnostics.GenericSaTests;
 import jdplus.sa.base.core.diagnostics.ResidualTradingDaysDiagnostics;
 import jdplus.sa.base.core.diagnostics.ResidualTradingDaysDiagnosticsConfiguration;
 import jdplus.sa.base.core.diagnostics.ResidualTradingDaysDiagnosticsFactory;
@@ -81,7 +82,10 @@ public class X12plusFactory implements SaProcessingFactory<X12plusSpec, X12plusR
                 );
         SaOutOfSampleDiagnosticsFactory<X12plusResults> outofsample
                 = new SaOutOfSampleDiagnosticsFactory<>(OutOfSampleDiagnosticsConfiguration.getDefault(),
-                        r -> r.getDiagnostics().getGenericDiagnostics().forecastingTest());
+                        r -> {
+                            GenericSaTests tests = genericDiagnostics(r);
+                            return tests == null ? null : tests.forecastingTest();
+                        });
         SaResidualsDiagnosticsFactory<X12plusResults> residuals
                 = new SaResidualsDiagnosticsFactory<>(ResidualsDiagnosticsConfiguration.getDefault(),
                         r -> r.getPreprocessing());
@@ -91,7 +95,7 @@ public class X12plusFactory implements SaProcessingFactory<X12plusSpec, X12plusR
 
         AdvancedResidualSeasonalityDiagnosticsFactory<X12plusResults> advancedResidualSeasonality
                 = new AdvancedResidualSeasonalityDiagnosticsFactory<>(AdvancedResidualSeasonalityDiagnosticsConfiguration.getDefault(),
-                        (X12plusResults r) -> r.getDiagnostics().getGenericDiagnostics()
+                        (X12plusResults r) -> genericDiagnostics(r)
                 );
 
         ResidualTradingDaysDiagnosticsFactory<X12plusResults> residualTradingDays
@@ -102,7 +106,8 @@ public class X12plusFactory implements SaProcessingFactory<X12plusSpec, X12plusR
                             if (preprocessing != null) {
                                 td = Arrays.stream(preprocessing.getDescription().getVariables()).anyMatch(v -> v.getCore() instanceof ITradingDaysVariable);
                             }
-                            return new ResidualTradingDaysDiagnostics.Input(r.getDiagnostics().getGenericDiagnostics().residualTradingDaysTests(), td);
+                            GenericSaTests tests = genericDiagnostics(r);
+                            return tests == null ? null : new ResidualTradingDaysDiagnostics.Input(tests.residualTradingDaysTests(), td);
                         }
                 );
 
@@ -117,6 +122,11 @@ public class X12plusFactory implements SaProcessingFactory<X12plusSpec, X12plusR
         return all;
     }
 
+    private static GenericSaTests genericDiagnostics(X12plusResults r) {
+        X12plusDiagnostics diags = r.getDiagnostics();
+        return diags == null ? null : diags.getGenericDiagnostics();
+    }
+
     @Override
     public AlgorithmDescriptor descriptor() {
         return X12plusSpec.DESCRIPTOR;
@@ -18,6 +18,7 @@ package jdplus.x12plus.base.core.x12;
 
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.Set;
 import jdplus.advancedsa.base.api.movingtd.MovingTradingDaysSpec;
 import jdplus.advancedsa.base.api.movingtd.TimeVaryingSpec;
 import jdplus.advancedsa.base.core.movingtd.MovingTradingDaysCorrection;
@@ -74,12 +75,25 @@ public class X12plusKernel {
     private X11plusSpec spec;
     private boolean preprop;
     private CholetteProcessor cholette;
+    private Set<X12plusDiagnostics.Type> diagnostics;
 
     public static X12plusKernel of(X12plusSpec spec, ModellingContext context) {
+        return of(spec, context, X12plusDiagnostics.ALL);
+    }
+
+    /**
+     *
+     * @param spec
+     * @param context
+     * @param diagnostics The diagnostics available in the results. They are
+     * computed on their first access
+     * @return
+     */
+    public static X12plusKernel of(X12plusSpec spec, ModellingContext context, Set<X12plusDiagnostics.Type> diagnostics) {
         PreliminaryChecks.Tool check = of(spec);
         boolean blPreprop = spec.getPreprocessing().isEnabled();
         FastKernel preprocessor = FastKernel.of(spec.getPreprocessing(), context);
-        return new X12plusKernel(check, preprocessor, spec.getMovingTradingDays(), spec.getX11(), blPreprop, CholetteProcessor.of(spec.getBenchmarking()));
+        return new X12plusKernel(check, preprocessor, spec.getMovingTradingDays(), spec.getX11(), blPreprop, CholetteProcessor.of(spec.getBenchmarking()), diagnostics);
     }
 
     public X12plusResults process(TsData s, ProcessingLog log) {
@@ -139,7 +153,7 @@ public class X12plusKernel {
                     .decomposition(xr)
                     .finals(finals)
                     .benchmarking(bench)
-                    .diagnostics(X12plusDiagnostics.of(preprocessing, preadjustment, xr, finals))
+                    .diagnostics(X12plusDiagnostics.of(preprocessing, preadjustment, xr, finals, diagnostics))
                     .log(log)
                     .build();
         } catch (Exception err) {
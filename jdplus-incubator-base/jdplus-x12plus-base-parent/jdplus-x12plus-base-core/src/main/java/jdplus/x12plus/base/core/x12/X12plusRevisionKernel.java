@@ -0,0 +1,125 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.x12plus.base.core.x12;
+
+import jdplus.sa.base.api.EstimationPolicyType;
+import jdplus.toolkit.base.api.processing.ProcessingLog;
+import jdplus.toolkit.base.api.timeseries.TsData;
+import jdplus.toolkit.base.api.timeseries.regression.ModellingContext;
+import jdplus.toolkit.base.core.regsarima.regular.RegSarimaModel;
+import jdplus.x12plus.base.api.X12plusSpec;
+
+/**
+ * Revision of a previous X12plus estimation (for instance when the series got
+ * new observations). The regarima model of the previous estimation is reused
+ * following a given revision policy (see X12plusFactory.refreshSpec): with the
+ * default policy (FreeParameters), the transformation, the arima orders, the
+ * calendar effects and the outliers are kept and the parameters are
+ * re-estimated, starting from their previous values. With the LastOutliers
+ * policy, the outliers are only re-tested after the previous domain.
+ *
+ * When the revised model is clearly worse than the previous one (BICC, which
+ * is normalized by the number of observations, increased by more than a given
+ * threshold) or when the revision failed, the series is completely
+ * re-identified with the initial specification.
+ *
+ * @author Jean Palate
+ */
+@lombok.Value
+@lombok.AllArgsConstructor(access = lombok.AccessLevel.PRIVATE)
+public class X12plusRevisionKernel {
+
+    public static final double DEF_MAX_BICC_INCREASE = 0.05;
+
+    private X12plusSpec spec;
+    private ModellingContext context;
+    private EstimationPolicyType policy;
+    private double maxBiccIncrease;
+
+    public static X12plusRevisionKernel of(X12plusSpec spec, ModellingContext context) {
+        return new X12plusRevisionKernel(spec, context, EstimationPolicyType.FreeParameters, DEF_MAX_BICC_INCREASE);
+    }
+
+    /**
+     *
+     * @param spec The initial specification, used for the complete
+     * re-identifications
+     * @param context
+     * @param policy The revision policy
+     * @param maxBiccIncrease Maximum increase of the BICC of the regarima model
+     * before a complete re-identification
+     * @return
+     */
+    public static X12plusRevisionKernel of(X12plusSpec spec, ModellingContext context, EstimationPolicyType policy, double maxBiccIncrease) {
+        return new X12plusRevisionKernel(spec, context, policy, maxBiccIncrease);
+    }
+
+    /**
+     * Processes a revised series
+     *
+     * @param s The revised series
+     * @param previous The previous estimation. If null, the series is
+     * completely re-identified
+     * @param log
+     * @return
+     */
+    public X12plusResults process(TsData s, X12plusResults previous, ProcessingLog log) {
+        if (log == null) {
+            log = ProcessingLog.dummy();
+        }
+        RegSarimaModel prev = previous == null ? null : previous.getPreprocessing();
+        if (prev == null || policy == EstimationPolicyType.Complete || !spec.getPreprocessing().isEnabled()) {
+            return X12plusKernel.of(spec, context).process(s, log);
+        }
+        X12plusFactory factory = X12plusFactory.getInstance();
+        X12plusSpec cspec = factory.generateSpec(spec, prev.getDescription());
+        X12plusSpec rspec = factory.refreshSpec(cspec, spec, policy, prev.getDescription().getSeries().getDomain());
+        X12plusResults rslt = X12plusKernel.of(rspec, context).process(s, log);
+        if (rslt != null && !isDegraded(prev, rslt.getPreprocessing())) {
+            return rslt;
+        }
+        log.warning("revised model rejected; complete re-identification");
+        return X12plusKernel.of(spec, context).process(s, log);
+    }
+
+    /**
+     * The revised model is compared with the previous one through the BICC
+     * (normalized BIC of X13/Tramo). The BICC is defined per effective
+     * observation: it is the log of the ML variance of the innovations
+     * (corrected for the transformation, so on the scale of the original
+     * series) plus the penalty k*log(n)/n, where k is the number of estimated
+     * parameters and n the number of effective observations. Unlike the
+     * likelihood, the AIC or the BIC, which grow with the length of the
+     * series, its values for the previous domain (n observations) and for the
+     * revised one (n+h observations) are thus directly comparable: for the
+     * same model, the penalty only changes by O(h*log(n)/n^2) and the BICC
+     * increases only when the fit of the new observations is worse than the
+     * previous fit. The threshold is an absolute increase of that criterion.
+     *
+     * @param prev The previous model
+     * @param cur The revised model
+     * @return
+     */
+    private boolean isDegraded(RegSarimaModel prev, RegSarimaModel cur) {
+        if (cur == null) {
+            return true;
+        }
+        double bicc0 = prev.getEstimation().getStatistics().getBICC(),
+                bicc1 = cur.getEstimation().getStatistics().getBICC();
+        return !Double.isFinite(bicc1) || bicc1 > bicc0 + maxBiccIncrease;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.x12plus.base.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import jdplus.toolkit.base.core.math.linearfilters.IFiniteFilter;
+import jdplus.x12plus.base.api.SeasonalFilterOption;
+import jdplus.x12plus.base.api.X11plusSpec;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class BoundedCacheTest {
+
+    public BoundedCacheTest() {
+    }
+
+    @Test
+    public void testEviction() {
+        BoundedCache<Integer, String> cache = new BoundedCache<>(3);
+        AtomicInteger ncalls = new AtomicInteger();
+        for (int i = 0; i < 3; ++i) {
+            cache.get(i, k -> "v" + k + "-" + ncalls.incrementAndGet());
+        }
+        // 0 becomes the most recently used item
+        assertEquals("v0-1", cache.get(0, k -> "v" + k + "-" + ncalls.incrementAndGet()));
+        cache.get(3, k -> "v" + k + "-" + ncalls.incrementAndGet());
+        assertEquals(3, cache.size());
+        assertEquals(4, cache.misses());
+        assertEquals(1, cache.hits());
+        // 1 (least recently used) has been evicted
+        assertEquals("v0-1", cache.get(0, k -> "v" + k + "-" + ncalls.incrementAndGet()));
+        assertEquals("v2-3", cache.get(2, k -> "v" + k + "-" + ncalls.incrementAndGet()));
+        assertEquals("v1-5", cache.get(1, k -> "v" + k + "-" + ncalls.incrementAndGet()));
+        assertEquals(3, cache.size());
+        assertEquals(5, cache.misses());
+        assertEquals(3, cache.hits());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.misses());
+        assertEquals(0, cache.hits());
+    }
+
+    @Test
+    public void testContexts() {
+        X11Context.clearCache();
+        X11plusSpec spec = X11plusSpec.createDefault(true, 12, SeasonalFilterOption.S3X5);
+        X11Context first = null;
+        for (int i = 0; i <= X11Context.CACHE_SIZE; ++i) {
+            X11Context context = X11Context.of(spec.toBuilder().lowerSigma(1.5 + .01 * i).build());
+            if (i == 0) {
+                first = context;
+            }
+        }
+        assertEquals(X11Context.CACHE_SIZE, X11Context.getCacheSize());
+        assertEquals(X11Context.CACHE_SIZE + 1, X11Context.getCacheMisses());
+        assertEquals(0, X11Context.getCacheHits());
+        // the last context is still in the store
+        X11Context.of(spec.toBuilder().lowerSigma(1.5 + .01 * X11Context.CACHE_SIZE).build());
+        assertEquals(1, X11Context.getCacheHits());
+        // the first one has been evicted
+        assertNotSame(first, X11Context.of(spec));
+        assertEquals(X11Context.CACHE_SIZE + 2, X11Context.getCacheMisses());
+        assertEquals(X11Context.CACHE_SIZE, X11Context.getCacheSize());
+        X11Context.clearCache();
+        assertEquals(0, X11Context.getCacheSize());
+    }
+
+    @Test
+    public void testHenderson() {
+        MusgraveFilterFactory.clearCache();
+        IFiniteFilter[] f13 = MusgraveFilterFactory.makeFiltersForHenderson(13, 12);
+        for (int i = 0; i < 10; ++i) {
+            IFiniteFilter[] f = MusgraveFilterFactory.makeFiltersForHenderson(13, 12);
+            // copies of the cached array
+            assertNotSame(f13, f);
+            assertArrayEquals(f13, f);
+        }
+        assertEquals(1, MusgraveFilterFactory.getCacheMisses());
+        assertEquals(10, MusgraveFilterFactory.getCacheHits());
+        // the ratio depends on the frequency
+        MusgraveFilterFactory.makeFiltersForHenderson(13, 4);
+        assertEquals(2, MusgraveFilterFactory.getCacheMisses());
+        assertEquals(2, MusgraveFilterFactory.getCacheSize());
+
+        MusgraveFilterFactory.clearCache();
+        for (int i = 0; i <= MusgraveFilterFactory.CACHE_SIZE; ++i) {
+            MusgraveFilterFactory.makeFiltersForHenderson(5 + 2 * i, 12);
+        }
+        assertEquals(MusgraveFilterFactory.CACHE_SIZE, MusgraveFilterFactory.getCacheSize());
+        assertEquals(MusgraveFilterFactory.CACHE_SIZE + 1, MusgraveFilterFactory.getCacheMisses());
+        assertEquals(0, MusgraveFilterFactory.getCacheHits());
+        // the most recent filters are still in the store, the first ones have been evicted
+        MusgraveFilterFactory.makeFiltersForHenderson(5 + 2 * MusgraveFilterFactory.CACHE_SIZE, 12);
+        assertEquals(1, MusgraveFilterFactory.getCacheHits());
+        MusgraveFilterFactory.makeFiltersForHenderson(5, 12);
+        assertEquals(MusgraveFilterFactory.CACHE_SIZE + 2, MusgraveFilterFactory.getCacheMisses());
+        assertEquals(MusgraveFilterFactory.CACHE_SIZE, MusgraveFilterFactory.getCacheSize());
+        MusgraveFilterFactory.clearCache();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.x12plus.base.core;
+
+import java.util.Arrays;
+import java.util.Random;
+import jdplus.sa.base.api.DecompositionMode;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class DefaultExtremeValuesCorrectorTest {
+
+    private static final int NPERIODS = 5;
+
+    public DefaultExtremeValuesCorrectorTest() {
+    }
+
+    /**
+     * Irregular component (around 1 in the multiplicative case) with some
+     * outliers and, possibly, missing values
+     */
+    private static double[] irregular(int n, boolean mul, int nmissing, long seed) {
+        Random rnd = new Random(seed);
+        double[] s = new double[n];
+        for (int i = 0; i < n; ++i) {
+            double e = rnd.nextGaussian() * (1 + i / (double) n);
+            if (rnd.nextDouble() < .02) {
+                e *= 6;
+            }
+            s[i] = mul ? 1 + .01 * e : e;
+        }
+        for (int i = 0; i < nmissing; ++i) {
+            s[rnd.nextInt(n)] = Double.NaN;
+        }
+        return s;
+    }
+
+    private static DefaultExtremeValuesCorrector corrector(DoubleSeq s, Number period, boolean mul, int start) {
+        X11Context context = X11Context.builder()
+                .mode(mul ? DecompositionMode.Multiplicative : DecompositionMode.Additive)
+                .period(period)
+                .build();
+        DefaultExtremeValuesCorrector corrector = new DefaultExtremeValuesCorrector();
+        corrector.setStart(start);
+        corrector.analyse(s, context);
+        return corrector;
+    }
+
+    /**
+     * Initial algorithm of calcStdev: each moving window is rescanned by
+     * calcSingleStdev
+     */
+    private static double[] reference(DefaultExtremeValuesCorrector corrector, DoubleSeq s, int period, int start) {
+        int n = s.length();
+        int nfy = (n - start) / period;
+        if (nfy < NPERIODS) {
+            return new double[]{corrector.calcSingleStdev(s)};
+        }
+        int ny = nfy;
+        int ie = NPERIODS / 2;
+        if (start > 0) {
+            ++ny;
+            ++ie;
+        }
+        boolean cend = false;
+        if ((n - start) % period != 0) {
+            ++ny;
+            cend = true;
+        }
+        double[] stdev = new double[ny];
+        double e = corrector.calcSingleStdev(s.range(0, start + NPERIODS * period));
+        for (int i = 0; i < ie; ++i) {
+            stdev[i] = e;
+        }
+        int ibeg = start, iend = ibeg + NPERIODS * period;
+        while (iend <= n) {
+            stdev[ie++] = corrector.calcSingleStdev(s.range(ibeg, iend));
+            ibeg += period;
+            iend += period;
+        }
+        if (cend) {
+            ibeg -= period;
+            e = corrector.calcSingleStdev(s.range(ibeg, n));
+        } else {
+            e = stdev[ie - 1];
+        }
+        for (int i = ie; i < stdev.length; ++i) {
+            stdev[i] = e;
+        }
+        return stdev;
+    }
+
+    private static void check(int n, Number period, boolean mul, int start, int nmissing) {
+        int p = period.intValue();
+        DoubleSeq s = DoubleSeq.of(irregular(n, mul, nmissing, 31L * n + start));
+        DefaultExtremeValuesCorrector corrector = corrector(s, period, mul, start);
+        double[] expected = reference(corrector, s, p, start);
+        double[] stdev = corrector.calcStdev(s);
+        assertEquals(expected.length, stdev.length);
+        for (int i = 0; i < stdev.length; ++i) {
+            assertEquals(expected[i], stdev[i], 1e-12 * expected[i]);
+        }
+    }
+
+    @Test
+    public void testStdevMonthly() {
+        for (boolean mul : new boolean[]{false, true}) {
+            // complete years
+            check(120, 12, mul, 0, 0);
+            // first incomplete year
+            check(120, 12, mul, 5, 0);
+            // last incomplete year
+            check(127, 12, mul, 0, 0);
+            check(127, 12, mul, 5, 0);
+            // missing values
+            check(127, 12, mul, 5, 6);
+            // single window
+            check(59, 12, mul, 0, 0);
+            check(65, 12, mul, 7, 2);
+        }
+    }
+
+    @Test
+    public void testStdevDaily() {
+        for (boolean mul : new boolean[]{false, true}) {
+            check(365 * 12, 365.25, mul, 0, 0);
+            check(365 * 12 + 100, 365.25, mul, 40, 30);
+            check(365 * 5 + 20, 365.25, mul, 20, 5);
+        }
+    }
+
+    @Test
+    public void testBuffers() {
+        for (boolean mul : new boolean[]{false, true}) {
+            int n = 127;
+            double[] data = irregular(n, mul, 0, 7);
+            DoubleSeq s = DoubleSeq.of(data);
+            DefaultExtremeValuesCorrector corrector = corrector(s, 12, mul, 5);
+            assertTrue(corrector.getObservationWeights().anyMatch(w -> w < 1));
+            DoubleSeq corrections = corrector.computeCorrections(s);
+            DoubleSeq corrected = corrector.applyCorrections(s, corrections);
+
+            // larger buffers, which contain the results of a previous use
+            double[] buffer = new double[n + 10];
+            Arrays.fill(buffer, -1);
+            corrector.computeCorrections(s, buffer);
+            assertArrayEquals(corrections.toArray(), Arrays.copyOf(buffer, n));
+            assertEquals(-1, buffer[n]);
+
+            double[] cbuffer = new double[n + 10];
+            Arrays.fill(cbuffer, -1);
+            corrector.applyCorrections(s, corrections, cbuffer);
+            assertArrayEquals(corrected.toArray(), Arrays.copyOf(cbuffer, n));
+            assertEquals(-1, cbuffer[n]);
+
+            // the corrected series can be written in the buffer of the corrections
+            corrector.applyCorrections(s, DoubleSeq.of(buffer, 0, n), buffer);
+            assertArrayEquals(corrected.toArray(), Arrays.copyOf(buffer, n));
+        }
+    }
+}
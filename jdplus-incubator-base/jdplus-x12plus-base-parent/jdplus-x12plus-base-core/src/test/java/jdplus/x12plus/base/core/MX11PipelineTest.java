@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.x12plus.base.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.toolkit.base.api.math.linearfilters.HendersonSpec;
+import jdplus.toolkit.base.api.timeseries.TsData;
+import jdplus.toolkit.base.api.timeseries.TsPeriod;
+import jdplus.x12plus.base.api.MX11plusSpec;
+import jdplus.x12plus.base.api.PeriodSpec;
+import jdplus.x12plus.base.api.SeasonalFilterOption;
+import jdplus.x12plus.base.api.X11SeasonalFilterSpec;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class MX11PipelineTest {
+
+    public MX11PipelineTest() {
+    }
+
+    private static PeriodSpec periodSpec(Number period, SeasonalFilterOption option) {
+        return PeriodSpec.builder()
+                .period(period)
+                .trendFilter(new HendersonSpec(period.intValue() / 2, 3.5, 3.5))
+                .initialSeasonalFilter(new X11SeasonalFilterSpec(period, option))
+                .finalSeasonalFilter(new X11SeasonalFilterSpec(period, option))
+                .build();
+    }
+
+    private static TsData daily(int n, long seed) {
+        Random rnd = new Random(seed);
+        double[] y = new double[n];
+        for (int i = 0; i < n; ++i) {
+            y[i] = 1000 + i + 50 * Math.sin(2 * Math.PI * i / 7) + 100 * Math.cos(2 * Math.PI * i / 365.25) + 10 * rnd.nextGaussian();
+        }
+        return TsData.of(TsPeriod.daily(2015, 1, 1), DoubleSeq.of(y));
+    }
+
+    @Test
+    public void testBatch() {
+        MX11plusSpec spec = MX11plusSpec.builder()
+                .periodSpec(periodSpec(7, SeasonalFilterOption.S3X9))
+                .periodSpec(periodSpec(365.25, SeasonalFilterOption.S3X1))
+                .build();
+        List<TsData> data = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            data.add(daily(1500, i));
+        }
+        List<MX11Results> seq = MX11Pipeline.process(data, spec, 1);
+        List<MX11Results> par = MX11Pipeline.process(data, spec, 4);
+        for (int i = 0; i < data.size(); ++i) {
+            MX11Results r0 = seq.get(i), r1 = par.get(i);
+            assertEquals(2, r0.getSteps().size());
+            assertEquals(365.25, r0.getSteps().get(1).getPeriod());
+            assertTrue(r0.getSteps().get(0).getProcessingTime() > 0);
+            assertArrayEquals(r0.getSteps().get(1).getD11().getValues().toArray(), r1.getSteps().get(1).getD11().getValues().toArray());
+        }
+        MX11Results rslt = X11Toolkit.process(data.get(0), spec);
+        assertArrayEquals(seq.get(0).getSteps().get(1).getD11().getValues().toArray(), rslt.getSteps().get(1).getD11().getValues().toArray());
+    }
+}
@@ -111,6 +111,46 @@ public class RawX11KernelTest {
 //        System.out.println(kernel.getDstep().getD11());
     }
 
+    @Test
+    public void testLean() {
+        X11plusSpec spec = X11plusSpec.createDefault(true, 12, SeasonalFilterOption.S3X5);
+        RawX11Results all = new RawX11Kernel(spec).process(DoubleSeq.of(Data.PROD));
+        RawX11Kernel kernel = new RawX11Kernel(spec, X11Table.FINALS);
+        RawX11Results lean = kernel.process(DoubleSeq.of(Data.PROD));
+        assertNull(lean.getB1());
+        assertNull(lean.getC17());
+        assertNull(kernel.getDstep());
+        assertTrue(all.getD11().distance(lean.getD11()) == 0);
+        assertTrue(all.getD13().distance(lean.getD13()) == 0);
+    }
+
+    @Test
+    public void testFused() {
+        X11plusSpec spec = X11plusSpec.createDefault(true, 12, SeasonalFilterOption.S3X5);
+        FusedX11Kernel kernel = new FusedX11Kernel(spec);
+        for (double[] data : new double[][]{Data.PROD, Data.EXPORTS}) {
+            RawX11Results all = new RawX11Kernel(spec).process(DoubleSeq.of(data));
+            RawX11Results fused = kernel.process(DoubleSeq.of(data));
+            assertNull(fused.getB1());
+            assertTrue(all.getD10().distance(fused.getD10()) == 0);
+            assertTrue(all.getD11().distance(fused.getD11()) == 0);
+            assertTrue(all.getD12().distance(fused.getD12()) == 0);
+            assertTrue(all.getD13().distance(fused.getD13()) == 0);
+        }
+    }
+
+    @Test
+    public void testContextCache() {
+        X11plusSpec spec = X11plusSpec.createDefault(true, 12, SeasonalFilterOption.S3X5);
+        X11Context context = X11Context.of(spec);
+        // the horizons of the forecasts don't change the context
+        assertSame(context, X11Context.of(spec.toBuilder().forecastHorizon(12).build()));
+        assertNotSame(context, X11Context.of(spec.toBuilder().mode(DecompositionMode.Additive).build()));
+        RawX11Results cached = new RawX11Kernel(spec).process(DoubleSeq.of(Data.PROD));
+        RawX11Results created = new RawX11Kernel(spec).process(DoubleSeq.of(Data.PROD), X11Context.create(spec));
+        assertTrue(cached.getD11().distance(created.getD11()) == 0);
+    }
+
     @Test
     public void testDaily() {
         Random rnd=new Random();
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2024 National Bank of Belgium
+ *
+ * Licensed under the EUPL, Version 1.2 or – as soon they will be approved
+ * by the European Commission - subsequent versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the Licence is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the Licence for the specific language governing permissions and
+ * limitations under the Licence.
+ */
+package jdplus.x12plus.base.core;
+
+import java.util.Arrays;
+import java.util.Random;
+import jdplus.toolkit.base.api.data.DoubleSeq;
+import jdplus.toolkit.base.core.data.DataBlock;
+import jdplus.toolkit.base.core.math.linearfilters.IFiniteFilter;
+import jdplus.toolkit.base.core.math.linearfilters.ISymmetricFiltering;
+import jdplus.toolkit.base.core.math.linearfilters.SymmetricFilter;
+import jdplus.x12plus.base.api.SeasonalFilterOption;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Jean Palate
+ */
+public class SeasonalFilterPlanTest {
+
+    private static final SeasonalFilterOption[] OPTIONS = {SeasonalFilterOption.S3X3, SeasonalFilterOption.S3X5, SeasonalFilterOption.S3X9};
+
+    public SeasonalFilterPlanTest() {
+    }
+
+    /**
+     * Initial implementation of X11SeasonalFiltersFactory.AnyFilter.process:
+     * the cycle-subseries are interpolated in a buffer for each output
+     */
+    private static double[] reference(double period, SymmetricFilter sfilter, IFiniteFilter[] endpoints, DoubleSeq in) {
+        double[] x = new double[in.length()];
+        int n = sfilter.length(), m = n / 2;
+        DataBlock cin = DataBlock.make(n);
+        double t = m * period;
+        int l;
+        if ((t - (int) t) < 1e-9) {
+            l = m;
+        } else {
+            l = 1 + m;
+        }
+        for (int i = 0; i < x.length; ++i) {
+            cin.set(0);
+            int c = (int) (i / period);
+            int q = (int) ((x.length - 1 - i) / period); // last possible item
+            if (c >= l && q >= l) {
+                // fill the input buffer;
+                cin.set(m, in.get(i));
+                double dcur = period;
+                for (int j = m + 1; j < n; ++j, dcur += period) {
+                    int jcur = (int) dcur;
+                    double p0 = dcur - jcur, p1 = 1 - p0;
+                    if (p0 > 1e-9) {
+                        cin.set(j, p1 * in.get(i + jcur) + p0 * in.get(i + jcur + 1));
+                    } else {
+                        cin.set(j, in.get(i + jcur));
+                    }
+                }
+                dcur = period;
+                for (int j = m - 1; j >= 0; --j, dcur += period) {
+                    int jcur = (int) dcur;
+                    double p0 = dcur - jcur, p1 = 1 - p0;
+                    if (p0 > 1e-9) {
+                        cin.set(j, p1 * in.get(i - jcur) + p0 * in.get(i - jcur - 1));
+                    } else {
+                        cin.set(j, in.get(i - jcur));
+                    }
+                }
+                x[i] = sfilter.apply(cin);
+            } else if (c < l) {
+                int w = c;
+                // fill the input buffer;
+                cin.set(w, in.get(i));
+                double dcur = period;
+                for (int j = w + 1; j < n; ++j, dcur += period) {
+                    int jcur = (int) dcur;
+                    double p0 = dcur - jcur, p1 = 1 - p0;
+                    if (p0 > 1e-9) {
+                        cin.set(j, p1 * in.get(i + jcur) + p0 * in.get(i + jcur + 1));
+                    } else {
+                        cin.set(j, in.get(i + jcur));
+                    }
+                }
+                dcur = period;
+                for (int j = w - 1; j >= 0; --j, dcur += period) {
+                    int jcur = (int) dcur;
+                    double p0 = dcur - jcur, p1 = 1 - p0;
+                    if (p0 > 1e-9 && i - jcur - 1 >= 0) {
+                        cin.set(j, p1 * in.get(i - jcur) + p0 * in.get(i - jcur - 1));
+                    } else {
+                        cin.set(j, in.get(i - jcur));
+                    }
+                }
+                if (c < m) {
+                    int k = c + 1;
+                    x[i] = endpoints[m - k].apply(cin.reverse().range(m - c, n));
+                } else {
+                    x[i] = sfilter.apply(cin);
+                }
+            } else {
+                int w = n - q - 1;
+                // fill the input buffer;
+                cin.set(w, in.get(i));
+                double dcur = period;
+                for (int j = w + 1; j < n; ++j, dcur += period) {
+                    int jcur = (int) dcur;
+                    double p0 = dcur - jcur, p1 = 1 - p0;
+                    if (p0 > 1e-9 && i + jcur + 1 < in.length()) {
+                        cin.set(j, p1 * in.get(i + jcur) + p0 * in.get(i + jcur + 1));
+                    } else {
+                        cin.set(j, p1 * in.get(i + jcur));
+                    }
+                }
+                dcur = period;
+                for (int j = w - 1; j >= 0; --j, dcur += period) {
+                    int jcur = (int) dcur;
+                    double p0 = dcur - jcur, p1 = 1 - p0;
+                    if (p0 > 1e-9) {
+                        cin.set(j, p1 * in.get(i - jcur) + p0 * in.get(i - jcur - 1));
+                    } else {
+                        cin.set(j, in.get(i - jcur));
+                    }
+                }
+                if (q < m) {
+                    int k = q + 1;
+                    x[i] = endpoints[m - k].apply(cin.range(m - q, n));
+                } else {
+                    x[i] = sfilter.apply(cin);
+                }
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Number of outputs at each end that are not computed with the central
+     * stencil (see SeasonalFilterPlan)
+     */
+    private static int nends(double period, SymmetricFilter sfilter) {
+        int m = sfilter.length() / 2;
+        double t = m * period;
+        int l = (t - (int) t) < 1e-9 ? m : m + 1;
+        int nends = 0;
+        while ((int) (nends / period) < l) {
+            ++nends;
+        }
+        return nends;
+    }
+
+    private static DoubleSeq series(int n, double period, long seed) {
+        Random rnd = new Random(seed);
+        double[] s = new double[n];
+        for (int i = 0; i < n; ++i) {
+            s[i] = 100 + 10 * Math.sin(2 * Math.PI * i / period) + .01 * i + rnd.nextGaussian();
+        }
+        return DoubleSeq.of(s);
+    }
+
+    private static void check(double period, SeasonalFilterOption option, int len) {
+        ISymmetricFiltering filter = X11SeasonalFiltersFactory.filter(period, option);
+        SymmetricFilter sfilter = filter.centralFilter();
+        IFiniteFilter[] endpoints = filter.endPointsFilters();
+        SeasonalFilterPlan plan = SeasonalFilterPlan.of(period, sfilter, endpoints);
+        DoubleSeq in = series(len, period, len);
+        double[] expected = reference(period, sfilter, endpoints, in);
+        double[] x = plan.apply(in).toArray();
+        assertEquals(expected.length, x.length);
+        for (int i = 0; i < len; ++i) {
+            assertEquals(expected[i], x[i], 1e-11 * Math.abs(expected[i]), () -> option + " " + period + " " + len);
+        }
+        assertArrayEquals(x, filter.process(in).toArray());
+        // buffers longer than the series
+        double[] buffer = Arrays.copyOf(in.toArray(), len + 50), out = new double[len + 50];
+        plan.apply(buffer, len, out);
+        assertArrayEquals(x, Arrays.copyOf(out, len));
+        assertEquals(0, out[len]);
+    }
+
+    @Test
+    public void testWeekly() {
+        for (SeasonalFilterOption option : OPTIONS) {
+            int nends = nends(52.18, X11SeasonalFiltersFactory.filter(52.18, option).centralFilter());
+            check(52.18, option, 1200);
+            // the first and the last outputs overlap
+            check(52.18, option, 2 * nends - 1);
+            check(52.18, option, 2 * nends - 26);
+        }
+    }
+
+    @Test
+    public void testDaily() {
+        for (SeasonalFilterOption option : OPTIONS) {
+            int nends = nends(365.25, X11SeasonalFiltersFactory.filter(365.25, option).centralFilter());
+            check(365.25, option, 7000);
+            // the first and the last outputs overlap
+            check(365.25, option, 2 * nends - 1);
+            check(365.25, option, 2 * nends - 182);
+        }
+    }
+}
@@ -16,14 +16,26 @@
  */
 package jdplus.x12plus.base.core.x12;
 
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import jdplus.sa.base.api.EstimationPolicyType;
 import jdplus.sa.base.api.benchmarking.SaBenchmarkingSpec;
+import jdplus.toolkit.base.api.arima.SarimaSpec;
 import jdplus.toolkit.base.api.modelling.regular.ModellingSpec;
+import jdplus.toolkit.base.api.timeseries.TsData;
+import jdplus.toolkit.base.core.regarima.ami.ModellingUtility;
 import jdplus.advancedsa.base.api.movingtd.TimeVaryingSpec;
 import jdplus.x12plus.base.api.SeasonalFilterOption;
 import jdplus.x12plus.base.api.X11plusSpec;
 import tck.demetra.data.Data;
 import jdplus.x12plus.base.api.X12plusSpec;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  *
@@ -65,6 +77,139 @@ public class X12plusKernelTest {
 //        System.out.println(rslt.getMtdCorrection().getTdCoefficients());
     }
 
+    private static String[] outliers(X12plusResults rslt) {
+        return Arrays.stream(rslt.getPreprocessing().getDescription().getVariables())
+                .filter(v -> ModellingUtility.isOutlier(v))
+                .map(v -> v.getName())
+                .sorted()
+                .toArray(String[]::new);
+    }
+
+    private static void assertSameOrders(SarimaSpec expected, SarimaSpec actual) {
+        assertEquals(expected.getP(), actual.getP());
+        assertEquals(expected.getD(), actual.getD());
+        assertEquals(expected.getQ(), actual.getQ());
+        assertEquals(expected.getBp(), actual.getBp());
+        assertEquals(expected.getBd(), actual.getBd());
+        assertEquals(expected.getBq(), actual.getBq());
+    }
+
+    @Test
+    public void testRevision() {
+        X12plusSpec spec = X12plusSpec.builder()
+                .preprocessing(ModellingSpec.FULL)
+                .x11(X11plusSpec.createDefault(true, 12, SeasonalFilterOption.S3X5))
+                .benchmarking(SaBenchmarkingSpec.DEFAULT_DISABLED)
+                .build();
+        X12plusResults previous = X12plusKernel.of(spec, null).process(Data.TS_ABS_RETAIL.drop(0, 1), null);
+        X12plusRevisionKernel kernel = X12plusRevisionKernel.of(spec, null);
+        X12plusResults rslt = kernel.process(Data.TS_ABS_RETAIL, previous, null);
+        assertNotNull(rslt);
+        assertEquals(Data.TS_ABS_RETAIL.length(), rslt.getPreprocessing().getDescription().getSeries().length());
+        // FreeParameters: the arima orders and the outliers of the previous estimation are kept
+        assertSameOrders(previous.getPreprocessing().getDescription().getStochasticComponent(),
+                rslt.getPreprocessing().getDescription().getStochasticComponent());
+        assertArrayEquals(outliers(previous), outliers(rslt));
+    }
+
+    @Test
+    public void testRevisionWithBreak() {
+        X12plusSpec spec = X12plusSpec.builder()
+                .preprocessing(ModellingSpec.FULL)
+                .x11(X11plusSpec.createDefault(true, 12, SeasonalFilterOption.S3X5))
+                .benchmarking(SaBenchmarkingSpec.DEFAULT_DISABLED)
+                .build();
+        // structural break (level shift of 30%) in the last two years
+        TsData s = Data.TS_ABS_RETAIL;
+        double[] values = s.getValues().toArray();
+        for (int i = values.length - 24; i < values.length; ++i) {
+            values[i] *= 1.3;
+        }
+        TsData revised = TsData.ofInternal(s.getStart(), values);
+        X12plusResults previous = X12plusKernel.of(spec, null).process(s.drop(0, 24), null);
+
+        // the revised model (previous outliers, no outliers detection) doesn't fit the new observations
+        X12plusResults kept = X12plusRevisionKernel.of(spec, null, EstimationPolicyType.FreeParameters, Double.POSITIVE_INFINITY)
+                .process(revised, previous, null);
+        double bicc0 = previous.getPreprocessing().getEstimation().getStatistics().getBICC(),
+                bicc1 = kept.getPreprocessing().getEstimation().getStatistics().getBICC();
+        assertTrue(bicc1 > bicc0 + X12plusRevisionKernel.DEF_MAX_BICC_INCREASE);
+        assertArrayEquals(outliers(previous), outliers(kept));
+
+        // so that the series is completely re-identified
+        X12plusResults rslt = X12plusRevisionKernel.of(spec, null).process(revised, previous, null);
+        X12plusResults full = X12plusKernel.of(spec, null).process(revised, null);
+        assertArrayEquals(outliers(full), outliers(rslt));
+        assertFalse(Arrays.equals(outliers(kept), outliers(rslt)));
+        assertEquals(full.getPreprocessing().getEstimation().getStatistics().getBICC(),
+                rslt.getPreprocessing().getEstimation().getStatistics().getBICC(), 1e-9);
+        assertTrue(full.getFinals().getD11final().getValues().distance(rslt.getFinals().getD11final().getValues()) < 1e-9);
+    }
+
+    @Test
+    public void testBatch() {
+        X12plusSpec spec = X12plusSpec.builder()
+                .preprocessing(ModellingSpec.FULL)
+                .x11(X11plusSpec.createDefault(true, 12, SeasonalFilterOption.S3X5))
+                .benchmarking(SaBenchmarkingSpec.DEFAULT_DISABLED)
+                .build();
+        Map<String, TsData> sa = new ConcurrentHashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            X12plusBatchProcessor processor = X12plusBatchProcessor.of(null, pool, 2);
+            processor.process(IntStream.range(0, 6).mapToObj(i -> X12plusBatchProcessor.Item.of("s" + i, Data.TS_ABS_RETAIL.drop(0, i), spec)),
+                    rslt -> rslt.getFinals().getD11final(), (id, d11) -> sa.put(id, d11));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(6, sa.size());
+        X12plusResults rslt = X12plusKernel.of(spec, null).process(Data.TS_ABS_RETAIL.drop(0, 3), null);
+        assertTrue(rslt.getFinals().getD11final().getValues().distance(sa.get("s3").getValues()) < 1e-9);
+    }
+
+    @Test
+    public void testBatchFailure() {
+        X12plusSpec spec = X12plusSpec.builder()
+                .preprocessing(ModellingSpec.FULL)
+                .x11(X11plusSpec.createDefault(true, 12, SeasonalFilterOption.S3X5))
+                .benchmarking(SaBenchmarkingSpec.DEFAULT_DISABLED)
+                .build();
+        Map<String, Boolean> done = new ConcurrentHashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            // the kernel can't be created for the item without specification
+            X12plusBatchProcessor processor = X12plusBatchProcessor.of(null, pool, 2);
+            processor.process(IntStream.range(0, 4).mapToObj(i -> X12plusBatchProcessor.Item.of("s" + i, Data.TS_ABS_RETAIL.drop(0, i), i == 2 ? null : spec)),
+                    rslt -> rslt.getFinals().getD11final(), (id, d11) -> done.put(id, d11 != null));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(4, done.size());
+        assertFalse(done.get("s2"));
+        assertTrue(done.get("s3"));
+        // the errors of the sink are rethrown
+        assertThrows(IllegalStateException.class, () -> X12plusBatchProcessor.of(null, null, 1)
+                .process(Stream.of(X12plusBatchProcessor.Item.of("s", Data.TS_ABS_RETAIL, spec)), (id, rslt) -> {
+                    throw new IllegalStateException();
+                }));
+    }
+
+    @Test
+    public void testDiagnostics() {
+        X12plusSpec spec = X12plusSpec.builder()
+                .preprocessing(ModellingSpec.FULL)
+                .x11(X11plusSpec.createDefault(true, 12, SeasonalFilterOption.S3X5))
+                .benchmarking(SaBenchmarkingSpec.DEFAULT_DISABLED)
+                .build();
+        X12plusResults rslt = X12plusKernel.of(spec, null, EnumSet.of(X12plusDiagnostics.Type.GenericTests)).process(Data.TS_ABS_RETAIL, null);
+        assertNull(rslt.getDiagnostics().getVarianceDecomposition());
+        assertNotNull(rslt.getDiagnostics().getGenericDiagnostics());
+        rslt = X12plusKernel.of(spec, null, X12plusDiagnostics.NONE).process(Data.TS_ABS_RETAIL, null);
+        assertNull(rslt.getDiagnostics().getGenericDiagnostics());
+        rslt = X12plusKernel.of(spec, null).process(Data.TS_ABS_RETAIL, null);
+        assertNotNull(rslt.getDiagnostics().getVarianceDecomposition());
+    }
+
     @Test
     public void testNoPreprocessing() {
         X12plusSpec spec = X12plusSpec.builder()